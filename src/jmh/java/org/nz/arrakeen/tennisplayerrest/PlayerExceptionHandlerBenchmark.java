@@ -0,0 +1,68 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Cost of the 404 path: throwing the exception, building the error response and encoding it,
+ * against the exception-free lookup path and the original stack-trace + Jackson response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerExceptionHandlerBenchmark {
+
+    private PlayerExceptionHandler handler;
+    private PlayerErrorEncoder encoder;
+    private MockHttpServletRequest request;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        encoder = new PlayerErrorEncoder();
+        handler = new PlayerExceptionHandler();
+        handler.errorEncoder = encoder;
+        request = new MockHttpServletRequest("GET", "/players/999");
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> buildNotFoundResponse() {
+        try {
+            throw new PlayerNotFoundException("Player with id 999 not found.");
+        } catch (PlayerNotFoundException e) {
+            return handler.playerNotFoundHandler(e, request);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> notFoundWithoutException() {
+        return encoder.notFound(request.getRequestURI(), "Player with id 999 not found.");
+    }
+
+    //the path before stackless exceptions and the error encoder, for comparison
+    @Benchmark
+    public byte[] stackTraceAndJacksonNotFound() throws Exception {
+        try {
+            throw new RuntimeException("Player with id 999 not found.");
+        } catch (RuntimeException e) {
+            PlayerErrorResponse error = new PlayerErrorResponse(ZonedDateTime.now(), HttpStatus.NOT_FOUND.value(),
+                    request.getRequestURI(), e.getMessage());
+            return writer.writeValueAsBytes(error);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson encode/decode cost of {@link Player}, including the {@code @JsonFormat} java.sql.Date handling.
+ * {@code codec=bean} is plain bean (de)serialization, {@code codec=tuned} adds {@link PlayerJsonCodec}
+ * the way the application does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlayerJsonBenchmark {
+
+    @Param({"100"})
+    public int listSize;
+
+    @Param({"bean", "tuned"})
+    public String codec;
+
+    private ObjectWriter playerWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader playerReader;
+    private ObjectReader listReader;
+
+    private Player player;
+    private List<Player> players;
+    private byte[] playerJson;
+    private byte[] listJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        // configured the same way Spring Boot configures its ObjectMapper
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if ("tuned".equals(codec)) {
+            builder.modulesToInstall(PlayerJsonCodec.module());
+        }
+        ObjectMapper mapper = builder.build();
+
+        player = newPlayer(1);
+        players = new ArrayList<>(listSize);
+        for (int i = 1; i <= listSize; i++) {
+            players.add(newPlayer(i));
+        }
+
+        playerWriter = mapper.writerFor(Player.class);
+        listWriter = mapper.writerFor(new TypeReference<List<Player>>() { });
+        playerReader = mapper.readerFor(Player.class);
+        listReader = mapper.readerFor(new TypeReference<List<Player>>() { });
+
+        playerJson = playerWriter.writeValueAsBytes(player);
+        listJson = listWriter.writeValueAsBytes(players);
+    }
+
+    @Benchmark
+    public byte[] serializePlayer() throws Exception {
+        return playerWriter.writeValueAsBytes(player);
+    }
+
+    @Benchmark
+    public byte[] serializePlayerList() throws Exception {
+        return listWriter.writeValueAsBytes(players);
+    }
+
+    @Benchmark
+    public Player deserializePlayer() throws Exception {
+        return playerReader.readValue(playerJson);
+    }
+
+    @Benchmark
+    public List<Player> deserializePlayerList() throws Exception {
+        return listReader.readValue(listJson);
+    }
+
+    static Player newPlayer(int i) {
+        Player p = new Player("Player " + i, "Country " + (i % 50), Date.valueOf("1985-04-26"), i % 100,
+                new PlayerProfile("@player" + i));
+        p.setId(i);
+        p.getPlayerProfile().setId(i);
+        return p;
+    }
+}
@@ -0,0 +1,58 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.lang.reflect.Field;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Compares the precompiled {@link PlayerPatcher} with the reflective patch loop it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerPatchBenchmark {
+
+    private PlayerPatcher patcher;
+    private Player player;
+    private Map<String, Object> patch;
+
+    @Setup
+    public void setUp() {
+        patcher = new PlayerPatcher();
+        player = new Player("Roger Federer", "Switzerland", Date.valueOf("1981-08-08"), 20);
+
+        // only types the reflective path can set without conversion
+        patch = new HashMap<>();
+        patch.put("name", "Roger Patched");
+        patch.put("nationality", "Swiss");
+        patch.put("titles", 21);
+    }
+
+    @Benchmark
+    public Player reflective() {
+        // the PlayerService.patch implementation before PlayerPatcher
+        patch.forEach((key, value) -> {
+            Field field = ReflectionUtils.findField(Player.class, key);
+            ReflectionUtils.makeAccessible(field);
+            ReflectionUtils.setField(field, player, value);
+        });
+        return player;
+    }
+
+    @Benchmark
+    public Player precompiled() {
+        patcher.apply(player, patch);
+        return player;
+    }
+}
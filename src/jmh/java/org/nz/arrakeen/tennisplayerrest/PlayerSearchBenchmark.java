@@ -0,0 +1,145 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * GET /players/search query shapes against a large player table. Setup runs each shape once,
+ * asks H2 to EXPLAIN the statement Hibernate generated for it and fails if the plan does not
+ * use the expected index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerSearchBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PlayerService service;
+
+    private PlayerSearchCriteria byNationality;
+    private PlayerSearchCriteria byTitlesRange;
+    private PlayerSearchCriteria byBirthDateRange;
+    private PlayerSearchCriteria byNamePrefix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication app = new SpringApplication(TennisPlayerRestApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        context = app.run("--spring.datasource.url=jdbc:h2:mem:search-bench",
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + FirstSelect.class.getName(),
+                "--logging.level.root=WARN");
+        service = context.getBean(PlayerService.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // ids far above the sequence range; values spread so every filter is selective
+        jdbc.update("INSERT INTO player (id, name, nationality, birth_date, titles, version) "
+                + "SELECT X + 10000000, CONCAT('Player ', X), CONCAT('Country ', MOD(X, 200)), "
+                + "DATEADD('DAY', -MOD(X, 20000), DATE '2005-01-01'), MOD(X, 120), 0 "
+                + "FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbc.execute("ANALYZE");
+
+        byNationality = new PlayerSearchCriteria();
+        byNationality.setNationality("Country 7");
+
+        byTitlesRange = new PlayerSearchCriteria();
+        byTitlesRange.setMinTitles(100);
+        byTitlesRange.setMaxTitles(105);
+
+        byBirthDateRange = new PlayerSearchCriteria();
+        byBirthDateRange.setBornFrom(java.time.LocalDate.of(1990, 1, 1));
+        byBirthDateRange.setBornTo(java.time.LocalDate.of(1990, 1, 31));
+
+        byNamePrefix = new PlayerSearchCriteria();
+        byNamePrefix.setNamePrefix("Player 12345");
+
+        assertUsesIndex(jdbc, this::nationalityFirstPage, "IDX_PLAYER_NATIONALITY");
+        assertUsesIndex(jdbc, this::titlesRangeSortedByTitles, "IDX_PLAYER_TITLES");
+        assertUsesIndex(jdbc, this::birthDateRange, "IDX_PLAYER_BIRTH_DATE");
+        assertUsesIndex(jdbc, this::namePrefix, "IDX_PLAYER_NAME");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Player> nationalityFirstPage() {
+        return service.searchPlayers(byNationality, PlayerSort.ID, false, null, 50).getPlayers();
+    }
+
+    @Benchmark
+    public List<Player> titlesRangeSortedByTitles() {
+        return service.searchPlayers(byTitlesRange, PlayerSort.TITLES, true, null, 50).getPlayers();
+    }
+
+    @Benchmark
+    public List<Player> birthDateRange() {
+        return service.searchPlayers(byBirthDateRange, PlayerSort.BIRTH_DATE, false, null, 50).getPlayers();
+    }
+
+    @Benchmark
+    public List<Player> namePrefix() {
+        return service.searchPlayers(byNamePrefix, PlayerSort.NAME, false, null, 50).getPlayers();
+    }
+
+    //H2 picks the index when it prepares the statement, so EXPLAIN with every parameter bound to NULL shows the real plan
+    private static void assertUsesIndex(JdbcTemplate jdbc, Runnable search, String index) {
+        FirstSelect.start();
+        search.run();
+        String sql = FirstSelect.stop();
+        if (sql == null) {
+            throw new IllegalStateException("No SELECT captured for " + index);
+        }
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        if (plan == null || !plan.toUpperCase().contains(index)) {
+            throw new IllegalStateException("Expected " + index + " in plan of: " + sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Remembers the first SELECT Hibernate prepares while capturing; statements pass through unchanged.
+     */
+    public static class FirstSelect implements StatementInspector {
+        private static volatile boolean capturing;
+        private static volatile String sql;
+
+        static void start() {
+            sql = null;
+            capturing = true;
+        }
+
+        static String stop() {
+            capturing = false;
+            return sql;
+        }
+
+        @Override
+        public String inspect(String statement) {
+            if (capturing && sql == null && statement.regionMatches(true, 0, "select", 0, 6)) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+}
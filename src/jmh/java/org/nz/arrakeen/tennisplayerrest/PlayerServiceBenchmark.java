@@ -0,0 +1,74 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * {@link PlayerService} hot paths against the embedded H2 database, through the real Spring context
+ * (cache and transaction proxies included).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private PlayerService service;
+    private PlayerRepository repository;
+    private Map<String, Object> patch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = startContext();
+        service = context.getBean(PlayerService.class);
+        repository = context.getBean(PlayerRepository.class);
+        patch = Map.of("titles", 82);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Player getPlayer() {
+        // served from the player cache after the first call
+        return service.getPlayer(1);
+    }
+
+    @Benchmark
+    public Player getPlayerUncached() {
+        return repository.findById(1).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Player> getAllPlayers() {
+        return service.getAllPlayers();
+    }
+
+    @Benchmark
+    public Player patch() {
+        return service.patch(2, patch);
+    }
+
+    static ConfigurableApplicationContext startContext() {
+        SpringApplication app = new SpringApplication(TennisPlayerRestApplication.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        // startup logging would interleave with the JMH output
+        return app.run("--logging.level.root=WARN");
+    }
+}
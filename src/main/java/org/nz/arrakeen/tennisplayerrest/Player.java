@@ -7,9 +7,17 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 
 @Entity
+// every search filter/sort column is indexed together with id, the keyset tie-breaker
+@Table(indexes = {
+    @Index(name = "idx_player_nationality", columnList = "nationality, id"),
+    @Index(name = "idx_player_titles", columnList = "titles, id"),
+    @Index(name = "idx_player_birth_date", columnList = "birth_date, id"),
+    @Index(name = "idx_player_name", columnList = "name, id")
+})
 public class Player {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+    @SequenceGenerator(name = "player_seq", sequenceName = "player_seq", allocationSize = 50)
     private int id;
 
     private String name;
@@ -24,6 +32,9 @@ public class Player {
     @JoinColumn(name="profile_id", referencedColumnName="id")
     private PlayerProfile playerProfile;
 
+    @Version
+    private Integer version;
+
     public Player() {
 
     }
@@ -93,6 +104,14 @@ public class Player {
         this.playerProfile = playerProfile;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "\nPlayer [id= " + id + ", name= " + name + ", nationality= " + nationality + ", birthDate= " + birthDate
@@ -0,0 +1,271 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for the player and profile endpoints: requests beyond what the service can
+ * currently handle are answered at once instead of waiting for a worker, a connection or a lock.
+ * <p>
+ * Each client (remote address; behind a proxy set {@code server.forward-headers-strategy}) has a
+ * token bucket of {@code client.rate} requests per second with {@code client.burst} to spare;
+ * past that it gets 429. The bucket is a single {@link AtomicLong} holding the time at which it
+ * will be full again (the GCRA form of a token bucket), updated with compare-and-set.
+ * <p>
+ * Reads (GET, HEAD) and writes then each have an adaptive concurrency limit; a request that
+ * would exceed it gets 503. The limit grows by one when a request completes within the latency
+ * target while the limit was at least half used, and shrinks by {@code backoff} when a request
+ * is slower than the target or fails with a 5xx, so it settles near the concurrency at which the
+ * database still answers in time. Both rejections carry Retry-After. Off unless
+ * {@code players.admission.enabled} is set.
+ */
+@Component
+public class PlayerAdmissionControl implements AsyncHandlerInterceptor {
+
+    private static final String ADMITTED = PlayerAdmissionControl.class.getName() + ".ADMITTED";
+
+    @Value("${players.admission.enabled:false}")
+    private volatile boolean enabled;
+
+    @Value("${players.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${players.admission.backoff:0.9}")
+    private double backoff;
+
+    @Value("${players.admission.read.initial-limit:50}")
+    private int readInitialLimit;
+
+    @Value("${players.admission.read.max-limit:400}")
+    private int readMaxLimit;
+
+    @Value("${players.admission.read.latency-target:100ms}")
+    private Duration readLatencyTarget;
+
+    @Value("${players.admission.write.initial-limit:10}")
+    private int writeInitialLimit;
+
+    @Value("${players.admission.write.max-limit:100}")
+    private int writeMaxLimit;
+
+    @Value("${players.admission.write.latency-target:250ms}")
+    private Duration writeLatencyTarget;
+
+    @Value("${players.admission.min-limit:2}")
+    private int minLimit;
+
+    @Value("${players.admission.client.rate:100}")
+    private double clientRate;
+
+    @Value("${players.admission.client.burst:200}")
+    private int clientBurst;
+
+    @Autowired
+    private PlayerErrorEncoder errorEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AdaptiveLimit reads;
+    private AdaptiveLimit writes;
+    private Cache<String, AtomicLong> buckets;
+    private long emissionNanos;
+
+    @PostConstruct
+    public void init() {
+        reads = limit("read", readInitialLimit, readMaxLimit, readLatencyTarget);
+        writes = limit("write", writeInitialLimit, writeMaxLimit, writeLatencyTarget);
+        if (clientRate > 0) {
+            emissionNanos = (long) (TimeUnit.SECONDS.toNanos(1) / clientRate);
+            // a bucket left alone for burst * interval is full again, the same as a new one
+            buckets = Caffeine.newBuilder()
+                    .expireAfterAccess(Duration.ofNanos(Math.max(emissionNanos * clientBurst, TimeUnit.SECONDS.toNanos(1))))
+                    .maximumSize(100_000)
+                    .build();
+        }
+    }
+
+    private AdaptiveLimit limit(String routeClass, int initial, int max, Duration latencyTarget) {
+        AdaptiveLimit limit = new AdaptiveLimit(initial, minLimit, max, latencyTarget.toNanos(), backoff);
+        Gauge.builder("players.admission.limit", limit, AdaptiveLimit::limit)
+                .description("Current concurrency limit")
+                .tag("class", routeClass)
+                .register(meterRegistry);
+        Gauge.builder("players.admission.in_flight", limit, AdaptiveLimit::inFlight)
+                .description("Admitted requests still running")
+                .tag("class", routeClass)
+                .register(meterRegistry);
+        limit.rejectedByLimit = rejected(routeClass, "concurrency");
+        limit.rejectedByRate = rejected(routeClass, "rate");
+        return limit;
+    }
+
+    private Counter rejected(String routeClass, String reason) {
+        return Counter.builder("players.admission.rejected")
+                .description("Requests answered 503 (concurrency) or 429 (rate) without being handled")
+                .tag("class", routeClass)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // an async dispatch continues a request that was admitted already
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        AdaptiveLimit limit = read ? reads : writes;
+
+        long now = System.nanoTime();
+        long wait = takeToken(request.getRemoteAddr(), now);
+        if (wait > 0) {
+            limit.rejectedByRate.increment();
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            return reject(request, response, HttpStatus.TOO_MANY_REQUESTS, seconds, "Too many requests from this client");
+        }
+        int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            limit.rejectedByLimit.increment();
+            return reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, "Server is at capacity");
+        }
+        request.setAttribute(ADMITTED, new Admitted(limit, now, inFlight));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(ADMITTED) instanceof Admitted admitted) {
+            request.removeAttribute(ADMITTED);
+            boolean failed = ex != null || response.getStatus() >= 500;
+            admitted.limit().release(System.nanoTime() - admitted.start(), admitted.inFlight(), failed);
+        }
+    }
+
+    //a long-running async response (e.g. the change feed) gives its slot back without judging its latency
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(ADMITTED) instanceof Admitted admitted) {
+            request.removeAttribute(ADMITTED);
+            admitted.limit().release();
+        }
+    }
+
+    //nanoseconds until the client may send again; 0 if the request is allowed
+    private long takeToken(String client, long now) {
+        if (buckets == null) {
+            return 0;
+        }
+        AtomicLong fullAt = buckets.get(client, k -> new AtomicLong(now));
+        long capacity = emissionNanos * clientBurst;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + emissionNanos;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private boolean reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                           long retryAfter, String message) throws IOException {
+        byte[] body = errorEncoder.encode(status.value(), request.getRequestURI(), message);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return false;
+    }
+
+    private record Admitted(AdaptiveLimit limit, long start, int inFlight) {
+    }
+
+    /**
+     * Concurrency limit adjusted by additive increase, multiplicative decrease on latency. The
+     * limit and the in-flight count are each one atomic, changed without locks.
+     */
+    static final class AdaptiveLimit {
+        private final int min;
+        private final int max;
+        private final long latencyTargetNanos;
+        private final double backoff;
+        private final AtomicInteger limit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private Counter rejectedByLimit;
+        private Counter rejectedByRate;
+
+        AdaptiveLimit(int initial, int min, int max, long latencyTargetNanos, double backoff) {
+            this.min = Math.max(1, min);
+            this.max = Math.max(this.min, max);
+            this.latencyTargetNanos = latencyTargetNanos;
+            this.backoff = backoff;
+            this.limit = new AtomicInteger(Math.max(this.min, Math.min(this.max, initial)));
+        }
+
+        //the in-flight count including this request, or -1 if the limit is reached
+        int tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit.get()) {
+                    return -1;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return current + 1;
+                }
+            }
+        }
+
+        void release(long latencyNanos, int inFlightAtStart, boolean failed) {
+            inFlight.decrementAndGet();
+            if (failed || latencyNanos > latencyTargetNanos) {
+                limit.updateAndGet(l -> Math.max(min, Math.min(l - 1, (int) (l * backoff))));
+            } else if (inFlightAtStart * 2 >= limit.get()) {
+                // only a limit that is actually in use has shown it can grow
+                limit.updateAndGet(l -> Math.min(max, l + 1));
+            }
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+
+        int limit() {
+            return limit.get();
+        }
+
+        int inFlight() {
+            return inFlight.get();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Outcome of a single item in a bulk ingest request, reported by its position in the request.
+ */
+public class PlayerBatchResult {
+
+    public enum Status { CREATED, FAILED }
+
+    private final int index;
+    private final Integer id;
+    private final Status status;
+    private final String message;
+
+    private PlayerBatchResult(int index, Integer id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static PlayerBatchResult created(int index, int id) {
+        return new PlayerBatchResult(index, id, Status.CREATED, null);
+    }
+
+    public static PlayerBatchResult failed(int index, String message) {
+        return new PlayerBatchResult(index, null, Status.FAILED, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,78 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.sql.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Body of {@code POST /players/bulk-update} and {@code POST /players/bulk-delete}: the players
+ * to change, given either as {@code ids} or as a {@code filter} with the same fields as
+ * {@code GET /players/search}, and for updates the values to {@code set}.
+ */
+public class PlayerBulkRequest {
+    private List<Integer> ids;
+    private PlayerSearchCriteria filter;
+    private Changes set;
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public PlayerSearchCriteria getFilter() {
+        return filter;
+    }
+
+    public void setFilter(PlayerSearchCriteria filter) {
+        this.filter = filter;
+    }
+
+    public Changes getSet() {
+        return set;
+    }
+
+    public void setSet(Changes set) {
+        this.set = set;
+    }
+
+    /**
+     * Columns written by a bulk update; null leaves a column as it is. Names are per player,
+     * so they cannot be set in bulk.
+     */
+    public static class Changes {
+        private String nationality;
+
+        @JsonFormat(pattern = "dd-MM-yyyy")
+        private Date birthDate;
+
+        private Integer titles;
+
+        public String getNationality() {
+            return nationality;
+        }
+
+        public void setNationality(String nationality) {
+            this.nationality = nationality;
+        }
+
+        public Date getBirthDate() {
+            return birthDate;
+        }
+
+        public void setBirthDate(Date birthDate) {
+            this.birthDate = birthDate;
+        }
+
+        public Integer getTitles() {
+            return titles;
+        }
+
+        public void setTitles(Integer titles) {
+            this.titles = titles;
+        }
+    }
+}
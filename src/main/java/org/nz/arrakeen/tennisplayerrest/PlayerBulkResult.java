@@ -0,0 +1,31 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Outcome of a bulk update or delete. Chunks commit one by one, so when a chunk fails the
+ * players counted in {@code affected} stay changed and {@code error} says why the rest were not.
+ */
+public class PlayerBulkResult {
+
+    private final long affected;
+    private final int chunks;
+    private final String error;
+
+    public PlayerBulkResult(long affected, int chunks, String error) {
+        this.affected = affected;
+        this.chunks = chunks;
+        this.error = error;
+    }
+
+    public long getAffected() {
+        return affected;
+    }
+
+    //committed chunks
+    public int getChunks() {
+        return chunks;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
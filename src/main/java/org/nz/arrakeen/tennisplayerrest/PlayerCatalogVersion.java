@@ -0,0 +1,38 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Version of the player collection as a whole, used as the ETag of GET /players.
+ * <p>
+ * Every write path bumps it once its change is committed, so a reader can never pair
+ * a new version with data that is still uncommitted. The epoch keeps tags issued
+ * before a restart from matching afterwards.
+ */
+@Component
+public class PlayerCatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    public String current() {
+        return "c" + epoch + "." + version.get();
+    }
+}
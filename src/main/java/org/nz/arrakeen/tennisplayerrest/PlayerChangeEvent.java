@@ -0,0 +1,96 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Published by the player write paths for every change to a player. Listeners that keep
+ * derived views in memory should use {@code @TransactionalEventListener(fallbackExecution = true)}
+ * so they only ever see committed changes.
+ */
+public class PlayerChangeEvent {
+
+    public enum Type { CREATED, UPDATED, DETAILS_SET, PATCHED, TITLES_SET, TITLES_INCREMENTED, DELETED }
+
+    //player columns a DETAILS_SET can replace
+    public enum Column { NAME, NATIONALITY, BIRTH_DATE, TITLES }
+
+    private static final Set<Column> ALL_COLUMNS = EnumSet.allOf(Column.class);
+
+    private final Type type;
+    private final int playerId;
+    private final Player player;
+    private final long titles;
+    private final Set<Column> columns;
+
+    private PlayerChangeEvent(Type type, int playerId, Player player, long titles) {
+        this(type, playerId, player, titles, ALL_COLUMNS);
+    }
+
+    private PlayerChangeEvent(Type type, int playerId, Player player, long titles, Set<Column> columns) {
+        this.type = type;
+        this.playerId = playerId;
+        this.player = player;
+        this.titles = titles;
+        this.columns = columns;
+    }
+
+    public static PlayerChangeEvent created(Player player) {
+        return new PlayerChangeEvent(Type.CREATED, player.getId(), player, player.getTitles());
+    }
+
+    public static PlayerChangeEvent updated(Player player) {
+        return new PlayerChangeEvent(Type.UPDATED, player.getId(), player, player.getTitles());
+    }
+
+    //a full update written without loading the entity: id, version, name, nationality, birthDate and titles are known
+    public static PlayerChangeEvent detailsSet(Player details) {
+        return new PlayerChangeEvent(Type.DETAILS_SET, details.getId(), details, details.getTitles());
+    }
+
+    //an update that set some of those columns, e.g. a bulk update; details still holds all of them as of its version
+    public static PlayerChangeEvent detailsSet(Player details, Set<Column> columns) {
+        return new PlayerChangeEvent(Type.DETAILS_SET, details.getId(), details, details.getTitles(), columns);
+    }
+
+    public static PlayerChangeEvent patched(Player player) {
+        return new PlayerChangeEvent(Type.PATCHED, player.getId(), player, player.getTitles());
+    }
+
+    //after: the player's own columns and version read back once the titles were written
+    public static PlayerChangeEvent titlesSet(Player after) {
+        return new PlayerChangeEvent(Type.TITLES_SET, after.getId(), after, after.getTitles());
+    }
+
+    public static PlayerChangeEvent titlesIncremented(Player after, long delta) {
+        return new PlayerChangeEvent(Type.TITLES_INCREMENTED, after.getId(), after, delta);
+    }
+
+    public static PlayerChangeEvent deleted(int playerId) {
+        return new PlayerChangeEvent(Type.DELETED, playerId, null, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    //the player after the change, with its new row version (without the profile for DETAILS_SET,
+    //TITLES_SET and TITLES_INCREMENTED); null for DELETED
+    public Player getPlayer() {
+        return player;
+    }
+
+    //new titles for TITLES_SET, the applied delta for TITLES_INCREMENTED
+    public long getTitles() {
+        return titles;
+    }
+
+    //the columns a DETAILS_SET wrote
+    public Set<Column> getColumns() {
+        return columns;
+    }
+}
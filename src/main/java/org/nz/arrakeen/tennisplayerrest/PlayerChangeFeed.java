@@ -0,0 +1,289 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Committed {@link PlayerChangeEvent}s as a server-sent event stream ({@code GET /players/changes}).
+ * <p>
+ * Every change gets the next sequence number, which is its SSE id, and is serialized once. The
+ * last {@code buffer-size} events stay in a ring buffer, so a client that reconnects with
+ * {@code Last-Event-ID} gets what it missed before the live events. If that id is no longer
+ * buffered, it gets a {@code reset} event instead and should reload {@code GET /players}.
+ * Sequence numbers start at the startup time in microseconds, so ids keep increasing across
+ * restarts and an id from a previous run is treated as too old rather than replayed.
+ * <p>
+ * Each subscriber has its own bounded queue and sender thread (virtual), so a slow client never
+ * holds up a write or the other subscribers. A subscriber whose queue is full is dropped: its
+ * stream ends and the client reconnects and resumes from the buffer, or resets.
+ */
+@Component
+public class PlayerChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerChangeFeed.class);
+
+    // queued by the heartbeat; sent as an SSE comment so idle connections are noticed when they break
+    private static final FeedEvent HEARTBEAT = new FeedEvent(0, null, null);
+
+    @Value("${players.changes.buffer-size:10000}")
+    private int bufferSize;
+
+    @Value("${players.changes.subscriber-queue:1000}")
+    private int subscriberQueue;
+
+    @Value("${players.changes.timeout:10m}")
+    private Duration timeout;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // guards the ring, the sequence and the order in which events reach the subscribers
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private FeedEvent[] ring;
+    private long firstSequence;
+    private long lastSequence;
+
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        ring = new FeedEvent[bufferSize];
+        lastSequence = System.currentTimeMillis() * 1000;
+        firstSequence = lastSequence + 1;
+        Gauge.builder("players.changes.subscribers", subscribers, Set::size)
+                .description("Open GET /players/changes streams")
+                .register(meterRegistry);
+        dropped = Counter.builder("players.changes.dropped")
+                .description("Streams closed because the client fell too far behind")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlayerChange(PlayerChangeEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(new Change(event));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} of player {} for the change feed", event.getType(), event.getPlayerId(), e);
+            return;
+        }
+        String name = event.getType().name().toLowerCase(Locale.ROOT);
+
+        lock.lock();
+        try {
+            FeedEvent e = new FeedEvent(++lastSequence, name, data);
+            ring[(int) (e.sequence() % bufferSize)] = e;
+            subscribers.forEach(s -> s.offer(e));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //a stream of changes after lastEventId (the SSE Last-Event-ID), or from now on without one
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        lock.lock();
+        try {
+            // replay and registration under one lock: no event is missed or sent twice
+            subscriber.backlog = replay(lastEventId);
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        emitter.onTimeout(() -> {
+            subscriber.close();
+            emitter.complete();
+        });
+        subscriber.start();
+        return emitter;
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${players.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(s -> s.offer(HEARTBEAT));
+    }
+
+    //buffered events after lastEventId; a reset if it is unknown or already overwritten
+    private List<FeedEvent> replay(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return List.of(reset());
+        }
+        long oldest = Math.max(firstSequence, lastSequence - bufferSize + 1);
+        if (after < oldest - 1 || after > lastSequence) {
+            return List.of(reset());
+        }
+        List<FeedEvent> missed = new ArrayList<>((int) (lastSequence - after));
+        for (long seq = after + 1; seq <= lastSequence; seq++) {
+            missed.add(ring[(int) (seq % bufferSize)]);
+        }
+        return missed;
+    }
+
+    // carries the current sequence as its id, so the next reconnect resumes from here
+    private FeedEvent reset() {
+        return new FeedEvent(lastSequence, "reset", "{\"reload\":\"/players\"}");
+    }
+
+    private record FeedEvent(long sequence, String name, String data) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEvent> queue = new ArrayBlockingQueue<>(subscriberQueue);
+        private List<FeedEvent> backlog;
+        private volatile boolean closed;
+        private volatile Thread sender;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start() {
+            sender = Thread.ofVirtual().name("player-changes").start(this::run);
+        }
+
+        //never blocks the committing thread: a full queue drops the subscriber instead
+        void offer(FeedEvent event) {
+            if (!closed && !queue.offer(event)) {
+                closed = true;
+                subscribers.remove(this);
+                dropped.increment();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            if (sender != null) {
+                sender.interrupt();
+            }
+        }
+
+        private void run() {
+            try {
+                for (FeedEvent event : backlog) {
+                    send(event);
+                }
+                backlog = null;
+                while (!closed) {
+                    send(queue.take());
+                }
+                // dropped for falling behind: end the stream so the client reconnects and resumes
+                emitter.complete();
+            } catch (InterruptedException e) {
+                // closed by the emitter (completion, timeout or error)
+            } catch (IOException | IllegalStateException e) {
+                // the client went away
+                close();
+            }
+        }
+
+        private void send(FeedEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.sequence()))
+                        .name(event.name())
+                        .data(event.data(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    //the data of one feed event; null fields are left out
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+        private final PlayerChangeEvent.Type type;
+        private final int playerId;
+        private final Player player;
+        private final Long titles;
+        private final Set<PlayerChangeEvent.Column> columns;
+
+        Change(PlayerChangeEvent event) {
+            this.type = event.getType();
+            this.playerId = event.getPlayerId();
+            boolean titleChange = type == PlayerChangeEvent.Type.TITLES_SET || type == PlayerChangeEvent.Type.TITLES_INCREMENTED;
+            this.player = titleChange ? null : event.getPlayer();
+            this.titles = titleChange ? event.getTitles() : null;
+            this.columns = type == PlayerChangeEvent.Type.DETAILS_SET ? event.getColumns() : null;
+        }
+
+        public PlayerChangeEvent.Type getType() {
+            return type;
+        }
+
+        public int getPlayerId() {
+            return playerId;
+        }
+
+        //the player after the change (none for title changes); for DETAILS_SET its own columns without the profile
+        public Player getPlayer() {
+            return player;
+        }
+
+        //new titles for TITLES_SET, the delta for TITLES_INCREMENTED
+        public Long getTitles() {
+            return titles;
+        }
+
+        public Set<PlayerChangeEvent.Column> getColumns() {
+            return columns;
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package org.nz.arrakeen.tennisplayerrest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 public class PlayerController {
@@ -14,29 +29,226 @@ public class PlayerController {
     @Autowired
     PlayerService service;
 
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    PlayerTitleCounters titleCounters;
+
+    @Autowired
+    PlayerLeaderboard leaderboard;
+
+    @Autowired
+    PlayerReadModel readModel;
+
+    @Autowired
+    PlayerErrorEncoder errorEncoder;
+
+    @Autowired
+    PlayerWriteBehind writeBehind;
+
+    @Autowired
+    PlayerHandleIndex handles;
+
+    @Autowired
+    PlayerChangeFeed changeFeed;
+
     @GetMapping("/welcome")
     public String welcome() {
         return "Tennis Player REST API";
     }
 
     @GetMapping("/players")
-    public List<Player> getAllPlayers() {
-        return service.getAllPlayers();
+    public ResponseEntity<List<Player>> getAllPlayers(@RequestParam(required = false) Integer after,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "" + PlayerService.DEFAULT_PAGE_SIZE) int limit,
+                                                      WebRequest request) {
+        // with the read model, tag and page come from the same immutable snapshot, so they always agree
+        PlayerSnapshot snapshot = readModel.isEnabled() ? readModel.snapshot() : null;
+
+        // the tag covers the whole collection, so any page can be answered with 304 up front
+        String etag = snapshot != null ? readModel.eTag(snapshot) : service.getPlayersETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        int lastSeenId = cursor != null ? PlayerCursor.decode(cursor) : (after != null ? after : 0);
+        PlayerPage page = snapshot != null ? snapshot.page(lastSeenId, limit) : service.getPlayersPage(lastSeenId, limit);
+
+        return withNextLink(ResponseEntity.ok().eTag(etag), page);
+    }
+
+    //GET /players?ids=3,1,2: found players in request order plus the ids that do not exist
+    @GetMapping(value = "/players", params = "ids")
+    public PlayerMultiGet<Player> getPlayers(@RequestParam List<Integer> ids) {
+        if (readModel.isEnabled()) {
+            PlayerSnapshot snapshot = readModel.snapshot();
+            return PlayerMultiGet.load(ids, PlayerMultiGet.MAX_IDS, batch -> batch.stream()
+                    .map(snapshot::find).filter(p -> p != null).toList(), Player::getId);
+        }
+        return service.getPlayers(ids);
+    }
+
+    @GetMapping("/players/search")
+    public ResponseEntity<List<Player>> searchPlayers(@ModelAttribute PlayerSearchCriteria criteria,
+                                                      @RequestParam(defaultValue = "id") String sort,
+                                                      @RequestParam(defaultValue = "asc") String direction,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "" + PlayerService.DEFAULT_PAGE_SIZE) int limit) {
+        boolean descending;
+        if ("asc".equalsIgnoreCase(direction)) {
+            descending = false;
+        } else if ("desc".equalsIgnoreCase(direction)) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("direction must be 'asc' or 'desc'");
+        }
+
+        PlayerPage page = service.searchPlayers(criteria, PlayerSort.fromParameter(sort), descending, cursor, limit);
+        return withNextLink(ResponseEntity.ok(), page);
+    }
+
+    //adds a Link: <...>; rel="next" header pointing at the same request continued from the page's cursor
+    private ResponseEntity<List<Player>> withNextLink(ResponseEntity.BodyBuilder response, PlayerPage page) {
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after")
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.getPlayers());
+    }
+
+    @GetMapping("/players/leaderboard")
+    public List<PlayerStanding> getLeaderboard(@RequestParam(defaultValue = "" + PlayerLeaderboard.DEFAULT_SIZE) int k) {
+        return leaderboard.top(k);
+    }
+
+    //server-sent events for every committed change; a reconnect with Last-Event-ID resumes where it left off
+    @GetMapping(value = "/players/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter playerChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeed.subscribe(lastEventId);
+    }
+
+    @GetMapping("/players/export")
+    public void exportPlayers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        service.exportPlayers(response.getOutputStream());
     }
 
     @GetMapping("/players/{id}")
-    public Player getPlayer(@PathVariable int id) {
-        return service.getPlayer(id);
+    public ResponseEntity<?> getPlayer(@PathVariable int id, WebRequest request, HttpServletRequest servletRequest) {
+        // misses are answered directly instead of throwing: probing random ids is common
+        Player found;
+        if (readModel.isEnabled()) {
+            found = readModel.snapshot().find(id);
+        } else {
+            // only a conditional request pays for the version lookup; it never loads the entity
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                Optional<String> etag = service.findPlayerETag(id);
+                if (etag.isEmpty()) {
+                    return playerNotFound(id, servletRequest);
+                }
+                if (request.checkNotModified(withPendingTitles(etag.get(), id))) {
+                    return null;
+                }
+            }
+            found = findPlayer(id).orElse(null);
+        }
+        if (found == null) {
+            return playerNotFound(id, servletRequest);
+        }
+
+        // Spring answers If-None-Match against this ETag with 304, which covers the read-model path
+        Player player = titleCounters.withPending(found);
+        return ResponseEntity.ok().eTag(withPendingTitles(PlayerETags.of(player), id)).body(player);
+    }
+
+    //GET /players/by-handle/RogerFederer: case-insensitive, the leading '@' is optional
+    @GetMapping("/players/by-handle/{handle}")
+    public ResponseEntity<?> getPlayerByHandle(@PathVariable String handle, HttpServletRequest servletRequest) {
+        Player found = handles.find(handle)
+                .map(PlayerHandleIndex.Entry::playerId)
+                .map(id -> readModel.isEnabled() ? readModel.snapshot().find(id) : findPlayer(id).orElse(null))
+                .filter(p -> PlayerHandleIndex.matches(p.getPlayerProfile(), handle))
+                .orElse(null);
+        if (found == null) {
+            return errorEncoder.notFound(servletRequest.getRequestURI(), "Player with Twitter handle " + handle + " not found.");
+        }
+
+        Player player = titleCounters.withPending(found);
+        return ResponseEntity.ok().eTag(withPendingTitles(PlayerETags.of(player), player.getId())).body(player);
+    }
+
+    //a cached entity stored after a title flush evicted it would hide the flushed increments for good
+    private Optional<Player> findPlayer(int id) {
+        Optional<Player> found = service.findPlayer(id);
+        if (found.isPresent() && titleCounters.isStale(found.get())) {
+            return service.reloadPlayer(id);
+        }
+        return found;
+    }
+
+    private ResponseEntity<byte[]> playerNotFound(int id, HttpServletRequest request) {
+        return errorEncoder.notFound(request.getRequestURI(), "Player with id " + id + " not found.");
+    }
+
+    //unflushed increments change the representation without changing the row version
+    private String withPendingTitles(String etag, int id) {
+        long pending = titleCounters.pendingDelta(id);
+        return pending == 0 ? etag : etag + "+" + pending;
     }
 
     @PostMapping("/players")
-    public ResponseEntity<Player> addPlayer(@RequestBody Player player) {
+    public ResponseEntity<?> addPlayer(@RequestBody Player player,
+                                       @RequestHeader(value = PlayerPreferences.HEADER, required = false) String prefer) {
+        if (PlayerPreferences.contains(prefer, PlayerPreferences.RESPOND_ASYNC)) {
+            return writeAccepted(writeBehind.create(player));
+        }
         Player newPlayer = service.addPlayer(player);
         return new ResponseEntity<>(newPlayer, HttpStatus.CREATED);
     }
 
+    //status of a write accepted with Prefer: respond-async
+    @GetMapping("/players/writes/{ticketId}")
+    public ResponseEntity<?> getWriteTicket(@PathVariable String ticketId, HttpServletRequest request) {
+        PlayerWriteTicket ticket = writeBehind.ticket(ticketId);
+        if (ticket == null) {
+            return errorEncoder.notFound(request.getRequestURI(), "Write " + ticketId + " not found.");
+        }
+        return ResponseEntity.ok(ticket);
+    }
+
+    private ResponseEntity<PlayerWriteTicket> writeAccepted(PlayerWriteTicket ticket) {
+        return ResponseEntity.accepted()
+                .location(URI.create(ticket.getStatusUrl()))
+                .header(PlayerPreferences.APPLIED_HEADER, PlayerPreferences.RESPOND_ASYNC)
+                .body(ticket);
+    }
+
+    @PostMapping(value = "/players/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                                                         PlayerWebConfig.APPLICATION_SMILE_VALUE })
+    public List<PlayerBatchResult> addPlayers(@RequestBody List<Player> players) {
+        return service.addPlayers(players.iterator());
+    }
+
+    @PostMapping(value = "/players/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<PlayerBatchResult> addPlayersNdjson(HttpServletRequest request) throws IOException {
+        // read line by line so the request body is never materialized as a whole
+        try (MappingIterator<Player> players = objectMapper.readerFor(Player.class)
+                .readValues(request.getInputStream())) {
+            return service.addPlayers(players);
+        }
+    }
+
     @PutMapping("/players/{id}")
-    public ResponseEntity<?> updatePlayer(@RequestBody Player player, @PathVariable int id) {
+    public ResponseEntity<?> updatePlayer(@RequestBody Player player, @PathVariable int id,
+                                          @RequestHeader(value = PlayerPreferences.HEADER, required = false) String prefer,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          HttpServletRequest request) {
         // Validate that all required fields are present
         if (player.getName() == null || player.getName().trim().isEmpty() ||
             player.getNationality() == null || player.getNationality().trim().isEmpty() ||
@@ -47,12 +259,28 @@ public class PlayerController {
                                        HttpStatus.BAD_REQUEST);
         }
 
-        // If validation passes, proceed with the update
-        Player updatedPlayer = service.updatePlayer(id, player);
-        return new ResponseEntity<>(updatedPlayer, HttpStatus.OK);
+        // conditional writes are never queued: the precondition is checked when the answer is given
+        if (ifMatch == null && PlayerPreferences.contains(prefer, PlayerPreferences.RESPOND_ASYNC)) {
+            // unknown ids still get their 404 now; a delete racing the queued write fails the ticket
+            if (service.findPlayerETag(id).isEmpty()) {
+                return playerNotFound(id, request);
+            }
+            return writeAccepted(writeBehind.update(id, player));
+        }
+
+        // If validation passes, proceed with the update: one UPDATE statement, 412 on a stale If-Match
+        service.updatePlayer(id, player, PlayerETags.expectedVersion(id, ifMatch));
+        if (PlayerPreferences.contains(prefer, PlayerPreferences.RETURN_MINIMAL)) {
+            return ResponseEntity.noContent()
+                    .header(PlayerPreferences.APPLIED_HEADER, PlayerPreferences.RETURN_MINIMAL)
+                    .build();
+        }
+        // the representation costs one more select (the cached copy was just evicted)
+        Player updatedPlayer = service.getPlayer(id);
+        return ResponseEntity.ok().eTag(PlayerETags.of(updatedPlayer)).body(updatedPlayer);
     }
 
-    @PatchMapping("/players/{id}")
+    @PatchMapping(value = "/players/{id}", consumes = { MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json" })
     public Player partialUpdate( @PathVariable int id, @RequestBody Map<String, Object> playerPatch) {
         return service.patch(id, playerPatch);
     }
@@ -62,9 +290,30 @@ public class PlayerController {
         service.updateTitles(id, titles);
     }
 
+    //relative change, aggregated in memory and flushed in batches; visible immediately through GET /players/{id}
+    @PostMapping("/players/{id}/titles/increments")
+    public ResponseEntity<Void> incrementTitles(@PathVariable int id, @RequestBody int delta) {
+        // existence check is usually a cache hit
+        service.getPlayer(id);
+        titleCounters.increment(id, delta);
+        return ResponseEntity.accepted().build();
+    }
+
+    //same change for every player matched by ids or filter, executed as set-based statements in chunks
+    @PostMapping("/players/bulk-update")
+    public PlayerBulkResult bulkUpdate(@RequestBody PlayerBulkRequest request) {
+        return service.bulkUpdate(request);
+    }
+
+    @PostMapping("/players/bulk-delete")
+    public PlayerBulkResult bulkDelete(@RequestBody PlayerBulkRequest request) {
+        return service.bulkDelete(request);
+    }
+
     @DeleteMapping("/players/{id}")
-    public String deletePlayer(@PathVariable int id) {
-        return service.deletePlayer(id);
+    public String deletePlayer(@PathVariable int id,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return service.deletePlayer(id, PlayerETags.expectedVersion(id, ifMatch));
     }
 
 }
@@ -0,0 +1,82 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursors for paging through players, either by id or by a search sort key.
+ * Clients must treat the encoded value as a token and pass it back unchanged.
+ */
+public final class PlayerCursor {
+
+    private static final String PREFIX = "p1:";
+    private static final String SEARCH_PREFIX = "s1:";
+
+    private PlayerCursor() {
+    }
+
+    public static String encode(int lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static int decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Integer.parseInt(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException and malformed Base64
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public static String encodeSearch(PlayerSort sort, boolean descending, String sortValue, int lastId) {
+        // the sort value goes last because it may itself contain ':'; a null one is left out entirely
+        String raw = SEARCH_PREFIX + sort.name() + ":" + (descending ? "d" : "a") + ":" + lastId
+                + (sortValue != null ? ":" + sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchPosition decodeSearch(String cursor, PlayerSort sort, boolean descending) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.startsWith(SEARCH_PREFIX) ? raw.substring(SEARCH_PREFIX.length()).split(":", 4) : new String[0];
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (!parts[0].equals(sort.name()) || !parts[1].equals(descending ? "d" : "a")) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        try {
+            return new SearchPosition(parts.length == 4 ? parts[3] : null, Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public static final class SearchPosition {
+        // null when the page ended on a player without a sort value
+        private final String sortValue;
+        private final int lastId;
+
+        SearchPosition(String sortValue, int lastId) {
+            this.sortValue = sortValue;
+            this.lastId = lastId;
+        }
+
+        public String getSortValue() {
+            return sortValue;
+        }
+
+        public int getLastId() {
+            return lastId;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Strong entity tags for single players. A player's JSON embeds its profile, so the tag
+ * combines both versions; a profile-only patch does not bump the player row.
+ */
+public final class PlayerETags {
+
+    private PlayerETags() {
+    }
+
+    public static String of(Player player) {
+        PlayerProfile profile = player.getPlayerProfile();
+        return of(player.getVersion(), profile != null ? profile.getVersion() : null);
+    }
+
+    public static String of(Integer version, Integer profileVersion) {
+        String tag = "v" + (version != null ? version : 0);
+        return profileVersion != null ? tag + "." + profileVersion : tag;
+    }
+
+    /**
+     * The player row version named by an {@code If-Match} header, or null when there is no header
+     * or it is {@code *}. Only the row version is compared: a write replaces the player's own
+     * columns, not its profile. A value that is not one of our tags can never match, so it fails
+     * with {@link PlayerVersionMismatchException}.
+     */
+    public static Integer expectedVersion(int id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        int end = 1;
+        while (end < tag.length() && Character.isDigit(tag.charAt(end))) {
+            end++;
+        }
+        if (!tag.startsWith("v") || end == 1 || end > 10) {
+            throw new PlayerVersionMismatchException(id);
+        }
+        return Integer.valueOf(tag.substring(1, end));
+    }
+}
@@ -0,0 +1,82 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fast path for 404 bodies: writes the same JSON as a serialized {@link PlayerErrorResponse}
+ * straight into a byte array, without a response object, a ZonedDateTime or a Jackson
+ * serializer lookup. The timestamp only has second precision, so it is formatted at most once
+ * per second and shared by every error in that second.
+ */
+@Component
+public class PlayerErrorEncoder {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // same zone Jackson uses for PlayerErrorResponse: the mapper's, if set, else the JVM default
+    private ZoneId zone = ZoneId.systemDefault();
+
+    private volatile CachedTimestamp cached = new CachedTimestamp(Long.MIN_VALUE, "");
+
+    @Autowired(required = false)
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        if (objectMapper.getSerializationConfig().hasExplicitTimeZone()) {
+            zone = objectMapper.getSerializationConfig().getTimeZone().toZoneId();
+        }
+    }
+
+    public ResponseEntity<byte[]> notFound(String path, String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(encode(HttpStatus.NOT_FOUND.value(), path, message));
+    }
+
+    public byte[] encode(int statusCode, String path, String message) {
+        StringBuilder json = new StringBuilder(96 + length(path) + length(message));
+        json.append("{\"timestamp\":\"").append(timestamp())
+            .append("\",\"statusCode\":").append(statusCode)
+            .append(",\"path\":");
+        appendString(json, path);
+        json.append(",\"message\":");
+        appendString(json, message);
+        json.append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    String timestamp() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000);
+        CachedTimestamp c = cached;
+        if (c.second != second) {
+            c = new CachedTimestamp(second, TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(second).atZone(zone)));
+            cached = c;
+        }
+        return c.text;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"').append(JsonStringEncoder.getInstance().quoteAsString(value)).append('"');
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 4;
+    }
+
+    private record CachedTimestamp(long second, String text) {
+    }
+}
@@ -1,7 +1,12 @@
 package org.nz.arrakeen.tennisplayerrest;
 
 import java.time.ZonedDateTime;
+import java.util.Locale;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,15 +17,73 @@ import jakarta.servlet.http.HttpServletRequest;
 @ControllerAdvice
 public class PlayerExceptionHandler {
 
+    @Autowired
+    PlayerErrorEncoder errorEncoder;
+
+    //404s are frequent (clients probing ids), so they skip PlayerErrorResponse and Jackson
+    @ExceptionHandler
+    public ResponseEntity<byte[]> playerNotFoundHandler (PlayerNotFoundException exception, HttpServletRequest req) {
+
+        return errorEncoder.notFound(req.getRequestURI(), exception.getMessage());
+
+    }
+
+    //If-Match named a version that is no longer current
+    @ExceptionHandler
+    public ResponseEntity<PlayerErrorResponse> versionMismatchHandler (PlayerVersionMismatchException ex, HttpServletRequest req) {
+
+        PlayerErrorResponse error = new PlayerErrorResponse( ZonedDateTime.now(), HttpStatus.PRECONDITION_FAILED.value(),
+                req.getRequestURI(), ex.getMessage()
+        );
+
+        return new ResponseEntity<> (error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    //the handle belongs to another profile (checked up front, or caught by the unique index in a race)
+    @ExceptionHandler
+    public ResponseEntity<PlayerErrorResponse> handleTakenHandler (PlayerHandleTakenException ex, HttpServletRequest req) {
+
+        PlayerErrorResponse error = new PlayerErrorResponse( ZonedDateTime.now(), HttpStatus.CONFLICT.value(),
+                req.getRequestURI(), ex.getMessage()
+        );
+
+        return new ResponseEntity<> (error, HttpStatus.CONFLICT);
+    }
+
+    //other integrity violations (e.g. deleting a profile a player still uses) stay 400s
     @ExceptionHandler
-    public ResponseEntity<PlayerErrorResponse> playerNotFoundHandler (PlayerNotFoundException exception, HttpServletRequest req) {
+    public ResponseEntity<PlayerErrorResponse> dataIntegrityHandler (DataIntegrityViolationException ex, HttpServletRequest req) {
 
-        PlayerErrorResponse error = new PlayerErrorResponse( ZonedDateTime.now(), HttpStatus.NOT_FOUND.value(),
-                req.getRequestURI(), exception.getMessage()
+        boolean handleTaken = isHandleConflict(ex);
+        HttpStatus status = handleTaken ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+        PlayerErrorResponse error = new PlayerErrorResponse( ZonedDateTime.now(), status.value(),
+                req.getRequestURI(), handleTaken ? "Twitter handle is already taken." : ex.getMessage()
         );
 
-        return new ResponseEntity<> (error, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<> (error, status);
+    }
+
+    private static boolean isHandleConflict(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(PlayerProfile.TWITTER_KEY_INDEX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //backpressure from the write-behind queue: tell the client when to try again
+    @ExceptionHandler
+    public ResponseEntity<PlayerErrorResponse> writeQueueFullHandler (PlayerWriteQueueFullException ex, HttpServletRequest req) {
+
+        PlayerErrorResponse error = new PlayerErrorResponse( ZonedDateTime.now(), HttpStatus.TOO_MANY_REQUESTS.value(),
+                req.getRequestURI(), ex.getMessage()
+        );
 
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
     }
 
     @ExceptionHandler
@@ -0,0 +1,185 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Twitter handles of all profiles, kept in memory so {@code /profiles/by-handle/{handle}} and
+ * {@code /players/by-handle/{handle}} are a hash lookup instead of a query.
+ * <p>
+ * {@code byKey} maps {@link PlayerProfile#keyOf} of each handle to its profile and, if a player
+ * owns the profile, that player. Readers only touch {@code byKey}; writers hold the monitor and
+ * also keep the two reverse maps, which are what let a changed or deleted profile or player find
+ * its old entry. The database enforces uniqueness with a unique index on the same key.
+ * <p>
+ * The index is loaded once at startup. After that it follows the profile service (profiles
+ * created or deleted on their own) and committed {@link PlayerChangeEvent}s (profiles created,
+ * replaced or dropped with a player, and player deletes, which cascade to the profile). Callers
+ * still compare the loaded entity with the handle asked for, so a stale entry reads as a miss.
+ */
+@Component
+public class PlayerHandleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerHandleIndex.class);
+
+    private final Map<String, Entry> byKey = new ConcurrentHashMap<>();
+    private final Map<Integer, String> keyByProfile = new HashMap<>();
+    private final Map<Integer, Integer> profileByPlayer = new HashMap<>();
+
+    @Autowired
+    private PlayerProfileRepository profileRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //runs before the web server accepts requests, so no change can slip past the initial load
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            fillMissingKeys();
+            try (Stream<PlayerProfileRepository.HandleView> handles = profileRepo.streamHandles()) {
+                handles.forEach(h -> put(h.getProfileId(), h.getTwitterKey(), h.getPlayerId()));
+            }
+        });
+        log.info("Handle index loaded {} handles in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //profiles written before twitter_key existed; a handle that is already taken keeps no key and is not indexed
+    private void fillMissingKeys() {
+        List<PlayerProfile> missing = profileRepo.findWithoutTwitterKey();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Set<String> taken = new HashSet<>(profileRepo.findAllTwitterKeys());
+        for (PlayerProfile profile : missing) {
+            String key = PlayerProfile.keyOf(profile.getTwitter());
+            if (key == null) {
+                continue;
+            }
+            if (taken.add(key)) {
+                // the setter derives the key; the change is flushed with the transaction
+                profile.setTwitter(profile.getTwitter());
+            } else {
+                log.warn("Profile {} not indexed: handle {} is already used by another profile",
+                        profile.getId(), profile.getTwitter());
+            }
+        }
+    }
+
+    //profile and (possibly null) player id for a handle; empty if no profile has it
+    public Optional<Entry> find(String handle) {
+        String key = PlayerProfile.keyOf(handle);
+        return key == null ? Optional.empty() : Optional.ofNullable(byKey.get(key));
+    }
+
+    //whether the handle belongs to a profile other than profileId (0 for a profile not saved yet)
+    public boolean isTaken(String handle, int profileId) {
+        Entry entry = find(handle).orElse(null);
+        return entry != null && entry.profileId() != profileId;
+    }
+
+    //checked before a write so the usual conflict is a clean 409; the unique index catches the races
+    public void checkAvailable(String handle, int profileId) {
+        if (isTaken(handle, profileId)) {
+            throw new PlayerHandleTakenException(handle);
+        }
+    }
+
+    //whether a loaded profile still has the handle its index entry was found under; a handle since
+    //patched to blank (or just "@") has no key and matches nothing
+    public static boolean matches(PlayerProfile profile, String handle) {
+        String key = PlayerProfile.keyOf(handle);
+        return profile != null && key != null && key.equals(PlayerProfile.keyOf(profile.getTwitter()));
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    //a profile created through /profiles, which no player owns yet
+    public synchronized void profileSaved(PlayerProfile profile) {
+        put(profile.getId(), PlayerProfile.keyOf(profile.getTwitter()), null);
+    }
+
+    public synchronized void profileDeleted(int profileId) {
+        removeProfile(profileId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlayerChange(PlayerChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED, PATCHED -> playerSaved(event.getPlayerId(), event.getPlayer().getPlayerProfile());
+            // the player's profile went with it
+            case DELETED -> playerDeleted(event.getPlayerId());
+            // the other writes never touch the profile
+            default -> {
+            }
+        }
+    }
+
+    private synchronized void playerSaved(int playerId, PlayerProfile profile) {
+        Integer previous = profileByPlayer.remove(playerId);
+        if (previous != null && (profile == null || previous != profile.getId())) {
+            // a replaced or removed profile stays in the table (no orphan removal), now without a player
+            String key = keyByProfile.get(previous);
+            if (key != null) {
+                byKey.put(key, new Entry(previous, null));
+            }
+        }
+        if (profile != null) {
+            put(profile.getId(), PlayerProfile.keyOf(profile.getTwitter()), playerId);
+        }
+    }
+
+    private synchronized void playerDeleted(int playerId) {
+        Integer profileId = profileByPlayer.remove(playerId);
+        if (profileId != null) {
+            removeProfile(profileId);
+        }
+    }
+
+    private void put(int profileId, String key, Integer playerId) {
+        removeProfile(profileId);
+        if (key == null) {
+            return;
+        }
+        byKey.put(key, new Entry(profileId, playerId));
+        keyByProfile.put(profileId, key);
+        if (playerId != null) {
+            profileByPlayer.put(playerId, profileId);
+        }
+    }
+
+    private void removeProfile(int profileId) {
+        String key = keyByProfile.remove(profileId);
+        if (key == null) {
+            return;
+        }
+        Entry entry = byKey.get(key);
+        if (entry != null && entry.profileId() == profileId) {
+            byKey.remove(key);
+            if (entry.playerId() != null) {
+                profileByPlayer.remove(entry.playerId(), profileId);
+            }
+        }
+    }
+
+    public record Entry(int profileId, Integer playerId) {
+    }
+}
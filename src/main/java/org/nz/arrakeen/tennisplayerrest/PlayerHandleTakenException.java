@@ -0,0 +1,12 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Another profile already has this Twitter handle (compared case-insensitively); answered with 409.
+ */
+public class PlayerHandleTakenException extends RuntimeException {
+
+    public PlayerHandleTakenException(String handle) {
+        // a client error, so no stack trace
+        super("Twitter handle " + handle + " is already taken.", null, false, false);
+    }
+}
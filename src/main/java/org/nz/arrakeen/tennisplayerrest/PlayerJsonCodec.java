@@ -0,0 +1,333 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Hand-written Jackson codec for {@link Player} and {@link PlayerProfile}, registered with Spring
+ * Boot's ObjectMapper and therefore also used by the CBOR and Smile converters.
+ * <p>
+ * The output is exactly what bean serialization of the annotated entities produces: same field
+ * order, nulls written, birthDate as {@code dd-MM-yyyy} in the mapper's time zone. The difference is
+ * the work per record: field names are pre-encoded, there is no property introspection, and each
+ * birth date is formatted once per calendar day and then reused instead of going through a
+ * SimpleDateFormat. Reading accepts the same input as before; anything off the fast path (numbers
+ * as strings, epoch-millis dates, lenient dates) is handed back to Jackson.
+ */
+@JsonComponent
+public class PlayerJsonCodec {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString NATIONALITY = new SerializedString("nationality");
+    private static final SerializedString BIRTH_DATE = new SerializedString("birthDate");
+    private static final SerializedString TITLES = new SerializedString("titles");
+    private static final SerializedString PLAYER_PROFILE = new SerializedString("playerProfile");
+    private static final SerializedString VERSION = new SerializedString("version");
+    private static final SerializedString TWITTER = new SerializedString("twitter");
+
+    private static final String DATE_PATTERN = "dd-MM-yyyy";
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // formatted days are cached for this range; outside it (and before the Gregorian cutover)
+    // SimpleDateFormat is used so the output stays identical
+    private static final long FIRST_CACHED_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    private static final long LAST_CACHED_DAY = LocalDate.of(2100, 12, 31).toEpochDay();
+    private static final SerializedString[] DAYS = new SerializedString[(int) (LAST_CACHED_DAY - FIRST_CACHED_DAY + 1)];
+
+    //the same codec as a module, for mappers built outside Spring (tests, benchmarks)
+    public static SimpleModule module() {
+        SimpleModule module = new SimpleModule("PlayerJsonCodec");
+        module.addSerializer(Player.class, new PlayerSerializer());
+        module.addDeserializer(Player.class, new PlayerDeserializer());
+        module.addSerializer(PlayerProfile.class, new PlayerProfileSerializer());
+        module.addDeserializer(PlayerProfile.class, new PlayerProfileDeserializer());
+        return module;
+    }
+
+    public static class PlayerSerializer extends StdSerializer<Player> {
+
+        private static final long serialVersionUID = 1L;
+
+        public PlayerSerializer() {
+            super(Player.class);
+        }
+
+        @Override
+        public void serialize(Player player, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(player);
+            gen.writeFieldName(ID);
+            gen.writeNumber(player.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(player.getName());
+            gen.writeFieldName(NATIONALITY);
+            gen.writeString(player.getNationality());
+            gen.writeFieldName(BIRTH_DATE);
+            writeDate(gen, player.getBirthDate(), provider.getTimeZone());
+            gen.writeFieldName(TITLES);
+            gen.writeNumber(player.getTitles());
+            gen.writeFieldName(PLAYER_PROFILE);
+            if (player.getPlayerProfile() == null) {
+                gen.writeNull();
+            } else {
+                writeProfile(gen, player.getPlayerProfile());
+            }
+            gen.writeFieldName(VERSION);
+            writeInteger(gen, player.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class PlayerProfileSerializer extends StdSerializer<PlayerProfile> {
+
+        private static final long serialVersionUID = 1L;
+
+        public PlayerProfileSerializer() {
+            super(PlayerProfile.class);
+        }
+
+        @Override
+        public void serialize(PlayerProfile profile, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeProfile(gen, profile);
+        }
+    }
+
+    public static class PlayerDeserializer extends StdDeserializer<Player> {
+
+        private static final long serialVersionUID = 1L;
+
+        public PlayerDeserializer() {
+            super(Player.class);
+        }
+
+        @Override
+        public Player deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken t = startObject(p, ctxt, Player.class);
+            Player player = new Player();
+            for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "id" -> player.setId(readInt(p, ctxt, value));
+                    case "name" -> player.setName(readString(p, ctxt, value));
+                    case "nationality" -> player.setNationality(readString(p, ctxt, value));
+                    case "birthDate" -> player.setBirthDate(readDate(p, ctxt, value));
+                    case "titles" -> player.setTitles(readInt(p, ctxt, value));
+                    case "playerProfile" -> player.setPlayerProfile(value == JsonToken.VALUE_NULL
+                            ? null : readProfile(p, ctxt, this));
+                    case "version" -> player.setVersion(readInteger(p, ctxt, value));
+                    default -> ctxt.handleUnknownProperty(p, this, Player.class, field);
+                }
+            }
+            return player;
+        }
+    }
+
+    public static class PlayerProfileDeserializer extends StdDeserializer<PlayerProfile> {
+
+        private static final long serialVersionUID = 1L;
+
+        public PlayerProfileDeserializer() {
+            super(PlayerProfile.class);
+        }
+
+        @Override
+        public PlayerProfile deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return readProfile(p, ctxt, this);
+        }
+    }
+
+    private static void writeProfile(JsonGenerator gen, PlayerProfile profile) throws IOException {
+        gen.writeStartObject(profile);
+        gen.writeFieldName(ID);
+        gen.writeNumber(profile.getId());
+        gen.writeFieldName(TWITTER);
+        gen.writeString(profile.getTwitter());
+        gen.writeFieldName(VERSION);
+        writeInteger(gen, profile.getVersion());
+        gen.writeEndObject();
+    }
+
+    private static PlayerProfile readProfile(JsonParser p, DeserializationContext ctxt, StdDeserializer<?> owner)
+            throws IOException {
+        JsonToken t = startObject(p, ctxt, PlayerProfile.class);
+        PlayerProfile profile = new PlayerProfile();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "id" -> profile.setId(readInt(p, ctxt, value));
+                case "twitter" -> profile.setTwitter(readString(p, ctxt, value));
+                case "version" -> profile.setVersion(readInteger(p, ctxt, value));
+                default -> ctxt.handleUnknownProperty(p, owner, PlayerProfile.class, field);
+            }
+        }
+        return profile;
+    }
+
+    //positions the parser on the first field name (or the closing brace) of an object
+    private static JsonToken startObject(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            return p.nextToken();
+        }
+        if (t == JsonToken.FIELD_NAME || t == JsonToken.END_OBJECT) {
+            return t;
+        }
+        ctxt.handleUnexpectedToken(type, p);
+        return JsonToken.END_OBJECT;
+    }
+
+    private static void writeInteger(JsonGenerator gen, Integer value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.intValue());
+        }
+    }
+
+    private static String readString(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        return value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, String.class);
+    }
+
+    private static int readInt(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return p.getIntValue();
+        }
+        // Jackson's own coercion rules for strings, floats and null
+        return ctxt.readValue(p, Integer.TYPE);
+    }
+
+    private static Integer readInteger(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return p.getIntValue();
+        }
+        return value == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, Integer.class);
+    }
+
+    static void writeDate(JsonGenerator gen, java.util.Date date, TimeZone zone) throws IOException {
+        if (date == null) {
+            gen.writeNull();
+            return;
+        }
+        long millis = date.getTime();
+        long day = Math.floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+        if (day < FIRST_CACHED_DAY || day > LAST_CACHED_DAY) {
+            gen.writeString(simpleDateFormat(zone).format(date));
+            return;
+        }
+        int i = (int) (day - FIRST_CACHED_DAY);
+        SerializedString formatted = DAYS[i];
+        if (formatted == null) {
+            // racing threads store equal values; SerializedString is safe to publish this way
+            formatted = new SerializedString(formatDay(LocalDate.ofEpochDay(day)));
+            DAYS[i] = formatted;
+        }
+        gen.writeString(formatted);
+    }
+
+    static Date readDate(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return new Date(p.getLongValue());
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            return (Date) ctxt.handleUnexpectedToken(Date.class, p);
+        }
+        String text = p.getText().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        TimeZone zone = ctxt.getTimeZone();
+        LocalDate day = parseDay(text);
+        if (day != null) {
+            if ("UTC".equals(zone.getID())) {
+                return new Date(day.toEpochDay() * MILLIS_PER_DAY);
+            }
+            return new Date(ZonedDateTime.of(day, LocalTime.MIDNIGHT, zone.toZoneId()).toInstant().toEpochMilli());
+        }
+        // lenient forms ("1-2-1990", "32-01-1990") behave as they did with @JsonFormat
+        try {
+            return new Date(simpleDateFormat(zone).parse(text).getTime());
+        } catch (ParseException e) {
+            return (Date) ctxt.handleWeirdStringValue(Date.class, text,
+                    "expected format \"%s\"", DATE_PATTERN);
+        }
+    }
+
+    //strict dd-MM-yyyy inside the cached range, else null
+    private static LocalDate parseDay(String text) {
+        if (text.length() != 10 || text.charAt(2) != '-' || text.charAt(5) != '-') {
+            return null;
+        }
+        int dayOfMonth = digits(text, 0, 2);
+        int month = digits(text, 3, 5);
+        int year = digits(text, 6, 10);
+        if (dayOfMonth < 0 || month < 0 || year < 1900 || year > 2100) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, dayOfMonth);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String formatDay(LocalDate day) {
+        char[] c = new char[10];
+        twoDigits(c, 0, day.getDayOfMonth());
+        c[2] = '-';
+        twoDigits(c, 3, day.getMonthValue());
+        c[5] = '-';
+        int year = day.getYear();
+        twoDigits(c, 6, year / 100);
+        twoDigits(c, 8, year % 100);
+        return new String(c);
+    }
+
+    private static void twoDigits(char[] c, int at, int value) {
+        c[at] = (char) ('0' + value / 10);
+        c[at + 1] = (char) ('0' + value % 10);
+    }
+
+    private static SimpleDateFormat simpleDateFormat(TimeZone zone) {
+        SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+        format.setTimeZone(zone);
+        return format;
+    }
+}
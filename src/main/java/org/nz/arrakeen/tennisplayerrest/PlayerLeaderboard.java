@@ -0,0 +1,137 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Players ordered by titles, kept in memory so the top K can be read without sorting the table.
+ * <p>
+ * The ranking is a skip list ordered by titles (descending) then id, so reading the top K walks
+ * K nodes and every change is an O(log n) remove and insert. {@code byId} remembers each player's
+ * current node, which is what lets a change find and remove the old one. Both are updated inside
+ * {@code byId.compute}, so changes to the same player are serialized while other players proceed
+ * in parallel. A reader walking the ranking during a change may briefly see a player at neither or
+ * both positions; the reply is still a valid ordering.
+ * <p>
+ * The ranking is loaded once at startup and then follows committed {@link PlayerChangeEvent}s.
+ * Commits may be reported out of order, so each entry keeps its row version: an event older than
+ * the entry is dropped, and only CREATED adds a player. Title increments still pending in
+ * {@link PlayerTitleCounters} show up after their flush.
+ */
+@Component
+public class PlayerLeaderboard {
+
+    public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerLeaderboard.class);
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::titles).reversed()
+            .thenComparingInt(Entry::id);
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+
+    @Autowired
+    private PlayerRepository repo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    //runs before the web server accepts requests, so no change can slip past the initial load
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PlayerRepository.StandingView> standings = repo.streamStandings()) {
+                standings.forEach(s -> put(new Entry(s.getId(), s.getName(), s.getTitles(), s.getVersion())));
+            }
+        });
+        log.info("Leaderboard loaded {} players in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlayerChange(PlayerChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED -> put(entry(event.getPlayer()));
+            // every other change carries the row after the write, so it replaces name and titles outright
+            case UPDATED, PATCHED, DETAILS_SET, TITLES_SET, TITLES_INCREMENTED -> replace(entry(event.getPlayer()));
+            case DELETED -> byId.computeIfPresent(event.getPlayerId(), (id, old) -> {
+                ranking.remove(old);
+                return null;
+            });
+        }
+    }
+
+    //the k players with the most titles, ties broken by id
+    public List<PlayerStanding> top(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        int size = Math.min(k, MAX_SIZE);
+        List<PlayerStanding> top = new ArrayList<>(size);
+        Iterator<Entry> it = ranking.iterator();
+        int rank = 0;
+        int previousTitles = -1;
+        for (int position = 1; position <= size && it.hasNext(); position++) {
+            Entry e = it.next();
+            if (e.titles() != previousTitles) {
+                rank = position;
+                previousTitles = e.titles();
+            }
+            top.add(new PlayerStanding(rank, e.id(), e.name(), e.titles()));
+        }
+        return top;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void put(Entry e) {
+        byId.compute(e.id(), (k, old) -> {
+            if (old != null) {
+                if (e.version() <= old.version()) {
+                    return old;
+                }
+                ranking.remove(old);
+            }
+            ranking.add(e);
+            return e;
+        });
+    }
+
+    //only players already ranked and only newer rows: an update never brings back a deleted player
+    private void replace(Entry e) {
+        byId.computeIfPresent(e.id(), (k, old) -> {
+            if (e.version() <= old.version()) {
+                return old;
+            }
+            ranking.remove(old);
+            ranking.add(e);
+            return e;
+        });
+    }
+
+    private static Entry entry(Player p) {
+        return new Entry(p.getId(), p.getName(), p.getTitles(), p.getVersion() != null ? p.getVersion() : 0);
+    }
+
+    private record Entry(int id, String name, int titles, int version) {
+    }
+}
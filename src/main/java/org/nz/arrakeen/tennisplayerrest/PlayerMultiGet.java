@@ -0,0 +1,65 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Result of a multi-get: the entities found, in the order their ids were first requested, and
+ * the requested ids that do not exist.
+ */
+public class PlayerMultiGet<T> {
+
+    public static final int MAX_IDS = 1000;
+
+    private final List<T> found;
+    private final List<Integer> missing;
+
+    private PlayerMultiGet(List<T> found, List<Integer> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    /**
+     * Deduplicates ids and loads them with one {@code IN} query per {@code batchSize} ids, so
+     * neither the statement nor its parameter list grows with the request.
+     */
+    public static <T> PlayerMultiGet<T> load(List<Integer> ids, int batchSize,
+                                             Function<List<Integer>, List<T>> inQuery, ToIntFunction<T> idOf) {
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids can be requested at once");
+        }
+        List<Integer> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        Map<Integer, T> byId = new HashMap<>();
+        for (int from = 0; from < unique.size(); from += batchSize) {
+            for (T entity : inQuery.apply(unique.subList(from, Math.min(unique.size(), from + batchSize)))) {
+                byId.put(idOf.applyAsInt(entity), entity);
+            }
+        }
+
+        List<T> found = new ArrayList<>(byId.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : unique) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PlayerMultiGet<>(found, missing);
+    }
+
+    public List<T> getFound() {
+        return found;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+}
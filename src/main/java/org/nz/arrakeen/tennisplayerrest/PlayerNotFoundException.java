@@ -1,26 +1,30 @@
 package org.nz.arrakeen.tennisplayerrest;
 
+/**
+ * Thrown when a requested player does not exist. It is an expected outcome rather than a bug,
+ * so no stack trace is captured: filling one in dominates the cost of a 404.
+ */
 public class PlayerNotFoundException extends RuntimeException {
 
     private static final long serialVersionUID = 1L;
 
     public PlayerNotFoundException() {
-        super();
+        super(null, null, false, false);
 
     }
 
     public PlayerNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
 
     }
 
     public PlayerNotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
 
     }
 
     public PlayerNotFoundException(Throwable cause) {
-        super(cause);
+        super(cause != null ? cause.toString() : null, cause, false, false);
 
     }
 }
@@ -0,0 +1,28 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.List;
+
+/**
+ * One keyset page of players plus the cursor to continue from, if any.
+ */
+public class PlayerPage {
+    private final List<Player> players;
+    private final String nextCursor;
+
+    public PlayerPage(List<Player> players, String nextCursor) {
+        this.players = players;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,186 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies JSON Merge Patch (RFC 7396) documents to {@link Player}.
+ * <p>
+ * The table of typed setters is built once; applying a patch is a hash lookup plus a
+ * method-reference call per key, with no reflection. Every value is converted before
+ * anything is written, so a rejected patch leaves the player untouched.
+ */
+@Component
+public class PlayerPatcher {
+
+    private static final DateTimeFormatter WIRE_DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final Map<String, FieldPatch<?>> playerFields;
+    private final Map<String, FieldPatch<?>> profileFields;
+
+    public PlayerPatcher() {
+        Map<String, FieldPatch<?>> player = new HashMap<>();
+        player.put("name", new FieldPatch<Player>(v -> asRequiredString("name", v), Player::setName));
+        player.put("nationality", new FieldPatch<Player>(v -> asRequiredString("nationality", v), Player::setNationality));
+        player.put("birthDate", new FieldPatch<Player>(v -> asDate("birthDate", v), Player::setBirthDate));
+        player.put("titles", new FieldPatch<Player>(v -> asTitles(v), Player::setTitles));
+        player.put("playerProfile", new FieldPatch<Player>(this::asProfilePatch, PlayerPatcher::mergeProfile));
+        this.playerFields = Map.copyOf(player);
+
+        Map<String, FieldPatch<?>> profile = new HashMap<>();
+        profile.put("twitter", new FieldPatch<PlayerProfile>(v -> asString("playerProfile.twitter", v), PlayerProfile::setTwitter));
+        this.profileFields = Map.copyOf(profile);
+    }
+
+    public void apply(Player player, Map<String, Object> patch) {
+        List<Runnable> writes = convert(playerFields, player, patch, "");
+        writes.forEach(Runnable::run);
+    }
+
+    private <T> List<Runnable> convert(Map<String, FieldPatch<?>> fields, T target, Map<String, Object> patch, String prefix) {
+        List<Runnable> writes = new ArrayList<>(patch.size());
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            @SuppressWarnings("unchecked")
+            FieldPatch<T> field = (FieldPatch<T>) fields.get(entry.getKey());
+            if (field == null) {
+                throw new IllegalArgumentException("Field '" + prefix + entry.getKey() + "' does not exist or cannot be patched");
+            }
+            writes.add(field.bind(target, entry.getValue()));
+        }
+        return writes;
+    }
+
+    // nested merge patch for the profile: null removes it, an object is merged into it
+    private ProfilePatch asProfilePatch(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Field 'playerProfile' must be an object or null");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> patch = (Map<String, Object>) map;
+        return new ProfilePatch(patch);
+    }
+
+    private static void mergeProfile(Player player, ProfilePatch patch) {
+        if (patch == null) {
+            player.setPlayerProfile(null);
+            return;
+        }
+        PlayerProfile profile = player.getPlayerProfile();
+        if (profile == null) {
+            profile = new PlayerProfile();
+            player.setPlayerProfile(profile);
+        }
+        patch.writesFor(profile).forEach(Runnable::run);
+    }
+
+    // name, nationality, birthDate and titles are mandatory for a player, so they cannot be removed
+    private static String asRequiredString(String field, Object value) {
+        String text = asString(field, value);
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException("Field '" + field + "' cannot be removed or blank");
+        }
+        return text;
+    }
+
+    private static String asString(String field, Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw new IllegalArgumentException("Field '" + field + "' must be a string");
+    }
+
+    private static int asTitles(Object value) {
+        if (value instanceof Integer titles) {
+            return checkTitles(titles);
+        }
+        if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return checkTitles(((Number) value).longValue());
+        }
+        if (value instanceof Number || value instanceof String) {
+            // slow path for 21.0, BigInteger or "21"
+            try {
+                BigInteger exact = new BigDecimal(value.toString().trim()).toBigIntegerExact();
+                return checkTitles(exact.bitLength() < 63 ? exact.longValue() : -1);
+            } catch (ArithmeticException | NumberFormatException e) {
+                // fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException("Field 'titles' must be a whole number");
+    }
+
+    private static int checkTitles(long titles) {
+        if (titles < 0 || titles > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Field 'titles' must be between 0 and " + Integer.MAX_VALUE);
+        }
+        return (int) titles;
+    }
+
+    private static Date asDate(String field, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Field '" + field + "' cannot be removed");
+        }
+        if (value instanceof Long || value instanceof Integer) {
+            // epoch millis, the same numeric form Jackson accepts for dates
+            return new Date(((Number) value).longValue());
+        }
+        if (value instanceof String text) {
+            try {
+                // accept the wire format first, then ISO-8601
+                return Date.valueOf(LocalDate.parse(text, WIRE_DATE));
+            } catch (DateTimeParseException wireFormatMismatch) {
+                try {
+                    return Date.valueOf(LocalDate.parse(text));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Field '" + field + "' must be a date formatted dd-MM-yyyy");
+                }
+            }
+        }
+        throw new IllegalArgumentException("Field '" + field + "' must be a date formatted dd-MM-yyyy");
+    }
+
+    private final class ProfilePatch {
+        private final Map<String, Object> patch;
+
+        ProfilePatch(Map<String, Object> patch) {
+            this.patch = patch;
+            // convert eagerly so bad nested values are rejected before the player is touched
+            convert(profileFields, new PlayerProfile(), patch, "playerProfile.");
+        }
+
+        List<Runnable> writesFor(PlayerProfile profile) {
+            return convert(profileFields, profile, patch, "playerProfile.");
+        }
+    }
+
+    private static final class FieldPatch<T> {
+        private final Function<Object, ?> converter;
+        private final BiConsumer<T, Object> setter;
+
+        @SuppressWarnings("unchecked")
+        <V> FieldPatch(Function<Object, V> converter, BiConsumer<T, V> setter) {
+            this.converter = converter;
+            // safe: the setter only ever receives what the converter produced
+            this.setter = (BiConsumer<T, Object>) (BiConsumer<T, ?>) setter;
+        }
+
+        Runnable bind(T target, Object rawValue) {
+            Object value = converter.apply(rawValue);
+            return () -> setter.accept(target, value);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Reads the {@code Prefer} request header (RFC 7240). Preference parameters are ignored and
+ * unknown preferences are skipped, as the RFC asks.
+ */
+public final class PlayerPreferences {
+
+    public static final String HEADER = "Prefer";
+    public static final String APPLIED_HEADER = "Preference-Applied";
+
+    public static final String RESPOND_ASYNC = "respond-async";
+    public static final String RETURN_MINIMAL = "return=minimal";
+
+    private PlayerPreferences() {
+    }
+
+    //true when the header lists the preference, e.g. contains("respond-async, wait=5", RESPOND_ASYNC)
+    public static boolean contains(String prefer, String preference) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String entry : prefer.split(",")) {
+            int params = entry.indexOf(';');
+            String token = (params >= 0 ? entry.substring(0, params) : entry).replace(" ", "");
+            if (preference.equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
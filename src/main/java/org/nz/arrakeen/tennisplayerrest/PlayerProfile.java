@@ -1,24 +1,57 @@
 package org.nz.arrakeen.tennisplayerrest;
 
+import java.util.Locale;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+// one profile per handle, whatever its case or leading '@' (several profiles may have none)
+@Table(indexes = @Index(name = PlayerProfile.TWITTER_KEY_INDEX, columnList = "twitter_key", unique = true))
 public class PlayerProfile {
+    public static final String TWITTER_KEY_INDEX = "ux_player_profile_twitter_key";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_profile_seq")
+    @SequenceGenerator(name = "player_profile_seq", sequenceName = "player_profile_seq", allocationSize = 50)
     private int id;
 
     private String twitter;
 
+    // derived from twitter by keyOf; not part of the JSON representation (no getter)
+    @Column(name = "twitter_key")
+    private String twitterKey;
+
+    @Version
+    private Integer version;
+
     public PlayerProfile() {
     }
 
     public PlayerProfile(String twitter) {
         super();
-        this.twitter = twitter;
+        setTwitter(twitter);
+    }
+
+    //the unique, case-insensitive form of a handle: trimmed, without leading '@', lower case; null if blank
+    public static String keyOf(String twitter) {
+        if (twitter == null) {
+            return null;
+        }
+        String key = twitter.trim();
+        int start = 0;
+        while (start < key.length() && key.charAt(start) == '@') {
+            start++;
+        }
+        key = key.substring(start).trim();
+        return key.isEmpty() ? null : key.toLowerCase(Locale.ROOT);
     }
 
     public int getId() {
@@ -35,6 +68,15 @@ public class PlayerProfile {
 
     public void setTwitter(String twitter) {
         this.twitter = twitter;
+        this.twitterKey = keyOf(twitter);
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
     }
 
     @Override
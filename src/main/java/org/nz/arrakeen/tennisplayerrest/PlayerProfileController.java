@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -18,11 +19,29 @@ public class PlayerProfileController {
     @Autowired
     PlayerProfileService service;
 
+    @Autowired
+    PlayerHandleIndex handles;
+
     @GetMapping
     public List<PlayerProfile> allPlayerProfiles() {
         return service.allPlayerProfiles();
     }
 
+    //GET /profiles?ids=3,1,2: found profiles in request order plus the ids that do not exist
+    @GetMapping(params = "ids")
+    public PlayerMultiGet<PlayerProfile> getPlayerProfiles(@RequestParam List<Integer> ids) {
+        return service.getPlayerProfiles(ids);
+    }
+
+    //GET /profiles/by-handle/RogerFederer: case-insensitive, the leading '@' is optional
+    @GetMapping("/by-handle/{handle}")
+    public PlayerProfile getPlayerProfileByHandle(@PathVariable String handle) {
+        return handles.find(handle)
+                .map(entry -> service.getPlayerProfile(entry.profileId()))
+                .filter(profile -> PlayerHandleIndex.matches(profile, handle))
+                .orElseThrow(() -> PlayerProfileNotFoundException.forHandle(handle));
+    }
+
     @GetMapping("/{id}")
     public PlayerProfile getPlayerProfile(@PathVariable int id){
         return service.getPlayerProfile(id);
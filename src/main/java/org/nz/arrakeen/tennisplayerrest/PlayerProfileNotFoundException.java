@@ -0,0 +1,19 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+//a missing profile is answered with 404 by the same handler as a missing player
+public class PlayerProfileNotFoundException extends PlayerNotFoundException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PlayerProfileNotFoundException(int id) {
+        super("Player profile with id " + id + " not found.");
+    }
+
+    private PlayerProfileNotFoundException(String message) {
+        super(message);
+    }
+
+    public static PlayerProfileNotFoundException forHandle(String handle) {
+        return new PlayerProfileNotFoundException("Player profile with Twitter handle " + handle + " not found.");
+    }
+}
@@ -1,9 +1,47 @@
 package org.nz.arrakeen.tennisplayerrest;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PlayerProfileRepository extends JpaRepository<PlayerProfile, Integer>{
 
+    @Query("SELECT pp FROM PlayerProfile pp WHERE pp.id IN :ids")
+    List<PlayerProfile> findAllByIdIn(@Param("ids") List<Integer> ids);
+
+    // delete without loading the entity first, for profiles whose player is already gone
+    @Modifying
+    @Query("delete from PlayerProfile pp where pp.id = :id")
+    int deleteDirectly(@Param("id") int id);
+
+    // every handle with the profile and (if any) the player that owns it, for PlayerHandleIndex
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT pp.id AS profileId, pp.twitterKey AS twitterKey, p.id AS playerId FROM PlayerProfile pp "
+            + "LEFT JOIN Player p ON p.playerProfile = pp WHERE pp.twitterKey IS NOT NULL")
+    Stream<HandleView> streamHandles();
+
+    // profiles stored before twitter_key existed (durable databases), oldest first
+    @Query("SELECT pp FROM PlayerProfile pp WHERE pp.twitterKey IS NULL AND pp.twitter IS NOT NULL ORDER BY pp.id")
+    List<PlayerProfile> findWithoutTwitterKey();
+
+    @Query("SELECT pp.twitterKey FROM PlayerProfile pp WHERE pp.twitterKey IS NOT NULL")
+    List<String> findAllTwitterKeys();
+
+    interface HandleView {
+        Integer getProfileId();
+
+        String getTwitterKey();
+
+        Integer getPlayerId();
+    }
 }
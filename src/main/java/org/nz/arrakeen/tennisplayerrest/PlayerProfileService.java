@@ -3,28 +3,59 @@ package org.nz.arrakeen.tennisplayerrest;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PlayerProfileService {
+    public static final String PROFILES_CACHE = "playerProfiles";
 
     @Autowired
     PlayerProfileRepository repo;
 
+    @Autowired
+    PlayerCatalogVersion catalogVersion;
+
+    @Autowired
+    PlayerHandleIndex handles;
+
+    @Value("${players.multi-get.batch-size:100}")
+    int multiGetBatchSize;
+
     public List<PlayerProfile> allPlayerProfiles() {
         return repo.findAll();
     }
 
+    public PlayerMultiGet<PlayerProfile> getPlayerProfiles(List<Integer> ids) {
+        return PlayerMultiGet.load(ids, multiGetBatchSize, repo::findAllByIdIn, PlayerProfile::getId);
+    }
+
+    @Cacheable(cacheNames = PROFILES_CACHE, key = "#id")
     public PlayerProfile getPlayerProfile(int id){
-        return repo.findById(id).get();
+        return repo.findById(id).orElseThrow(() -> new PlayerProfileNotFoundException(id));
     }
 
     public PlayerProfile addPlayerProfile(PlayerProfile profile) {
         profile.setId(0);
-        return repo.save(profile);
+        profile.setVersion(null);
+        handles.checkAvailable(profile.getTwitter(), 0);
+        PlayerProfile saved = repo.save(profile);
+        handles.profileSaved(saved);
+        return saved;
     }
 
+    //cached players embed their profile, so they are dropped as well
+    @Caching(evict = {
+        @CacheEvict(cacheNames = PROFILES_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = PlayerService.PLAYERS_CACHE, allEntries = true)
+    })
     public void deletePlayerProfile(int id) {
         repo.deleteById(id);
+        handles.profileDeleted(id);
+        //players embed their profile
+        catalogVersion.increment();
     }
 }
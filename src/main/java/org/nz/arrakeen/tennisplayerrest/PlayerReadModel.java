@@ -0,0 +1,165 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Optional read model that answers {@code GET /players} and {@code GET /players/{id}} from an
+ * immutable {@link PlayerSnapshot} instead of Hibernate (enable with
+ * {@code players.read-model.enabled=true}).
+ * <p>
+ * Readers grab the current snapshot from a volatile field and never lock. Writers record their
+ * {@link PlayerChangeEvent}s per transaction and, once it commits, fold them into one new snapshot
+ * under a single writer lock; a write outside a transaction publishes straight away. A read can
+ * therefore miss a committed write for the time between commit and publish, which is recorded as
+ * {@code players.read_model.staleness}. Writes that bypass {@link PlayerService} (SQL consoles,
+ * other instances) are not seen until restart.
+ */
+@Component
+public class PlayerReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerReadModel.class);
+
+    @Value("${players.read-model.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private PlayerRepository repo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // distinguishes snapshot versions across restarts, like PlayerCatalogVersion
+    private final long epoch = System.currentTimeMillis();
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    private volatile PlayerSnapshot snapshot = PlayerSnapshot.empty();
+    private volatile long publishedAt = System.nanoTime();
+    private Timer staleness;
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        staleness = Timer.builder("players.read_model.staleness")
+                .description("Time from a player change to the first snapshot that shows it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("players.read_model.bytes", this, m -> m.snapshot.footprintBytes())
+                .description("Estimated heap held by the current snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("players.read_model.players", this, m -> m.snapshot.size())
+                .register(meterRegistry);
+        Gauge.builder("players.read_model.version", this, m -> m.snapshot.version())
+                .register(meterRegistry);
+        TimeGauge.builder("players.read_model.age", this, TimeUnit.NANOSECONDS, m -> System.nanoTime() - m.publishedAt)
+                .description("Time since the current snapshot was published")
+                .register(meterRegistry);
+
+        long start = System.nanoTime();
+        snapshot = transactionTemplate.execute(status -> {
+            try (Stream<Player> players = repo.streamAllOrderedById()) {
+                // copy each row out and detach it so the persistence context stays empty
+                return PlayerSnapshot.of(players.map(p -> {
+                    PlayerSnapshot.Row row = PlayerSnapshot.Row.of(p);
+                    entityManager.detach(p);
+                    return row;
+                }).iterator());
+            }
+        });
+        publishedAt = System.nanoTime();
+        log.info("Read model loaded {} players (~{} KiB) in {} ms", snapshot.size(),
+                snapshot.footprintBytes() / 1024, (publishedAt - start) / 1_000_000);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    //current snapshot; callers should read everything for one response from the same instance
+    public PlayerSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public String eTag(PlayerSnapshot s) {
+        return "r" + epoch + "." + s.version();
+    }
+
+    //plain @EventListener: the change is copied while the entity is still in hand and applied after commit
+    @EventListener
+    public void onPlayerChange(PlayerChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        PlayerSnapshot.Change change = PlayerSnapshot.Change.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(change), System.nanoTime());
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingChanges created = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PlayerReadModel.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(created.changes, created.since);
+                    }
+                }
+            });
+            pending = created;
+        }
+        pending.changes.add(change);
+    }
+
+    private void publish(List<PlayerSnapshot.Change> changes, long since) {
+        publishLock.lock();
+        try {
+            snapshot = snapshot.apply(changes);
+            publishedAt = System.nanoTime();
+        } catch (RuntimeException e) {
+            // the write itself has committed; a broken snapshot must not fail the request
+            log.error("Could not apply {} player changes to the read model", changes.size(), e);
+            return;
+        } finally {
+            publishLock.unlock();
+        }
+        staleness.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class PendingChanges {
+        private final List<PlayerSnapshot.Change> changes = new ArrayList<>();
+        private final long since = System.nanoTime();
+    }
+}
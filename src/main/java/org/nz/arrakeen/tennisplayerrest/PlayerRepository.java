@@ -1,18 +1,113 @@
 package org.nz.arrakeen.tennisplayerrest;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
+import java.sql.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PlayerRepository extends JpaRepository <Player, Integer> {
+public interface PlayerRepository extends JpaRepository <Player, Integer>, JpaSpecificationExecutor<Player> {
 
+    // bulk updates skip Hibernate's versioning, so the version is bumped explicitly
     @Modifying
-    @Query("update Player p set p.titles = :titles where p.id = :id")
+    @Query("update Player p set p.titles = :titles, p.version = p.version + 1 where p.id = :id")
     void updateTitles(@Param("id") int id, @Param("titles") int titles);
 
+    // single-statement replace of the player's own columns that also hands back the new row version
+    // (H2 data change delta table); an empty list means missing (or, with a version, changed)
+    @Query(value = "SELECT version FROM FINAL TABLE (UPDATE player SET name = :name, nationality = :nationality, "
+            + "birth_date = :birthDate, titles = :titles, version = version + 1 WHERE id = :id)", nativeQuery = true)
+    List<Integer> updateDetailsReturningVersion(@Param("id") int id, @Param("name") String name,
+                                                @Param("nationality") String nationality,
+                                                @Param("birthDate") Date birthDate, @Param("titles") int titles);
+
+    @Query(value = "SELECT version FROM FINAL TABLE (UPDATE player SET name = :name, nationality = :nationality, "
+            + "birth_date = :birthDate, titles = :titles, version = version + 1 WHERE id = :id AND version = :version)",
+           nativeQuery = true)
+    List<Integer> updateDetailsReturningVersion(@Param("id") int id, @Param("name") String name,
+                                                @Param("nationality") String nationality,
+                                                @Param("birthDate") Date birthDate, @Param("titles") int titles,
+                                                @Param("version") int version);
+
+    // deletes the row and hands back its profile_id in the same round trip (H2 data change delta table);
+    // an empty list means nothing was deleted, a null element a player without profile
+    @Query(value = "SELECT profile_id FROM OLD TABLE (DELETE FROM player WHERE id = :id)", nativeQuery = true)
+    List<Integer> deleteReturningProfileId(@Param("id") int id);
+
+    @Query(value = "SELECT profile_id FROM OLD TABLE (DELETE FROM player WHERE id = :id AND version = :version)",
+           nativeQuery = true)
+    List<Integer> deleteReturningProfileId(@Param("id") int id, @Param("version") int version);
+
+    // versions only, for conditional requests that should not load the entity
+    @Query("SELECT p.version AS version, pp.version AS profileVersion FROM Player p LEFT JOIN p.playerProfile pp WHERE p.id = :id")
+    Optional<VersionView> findVersionById(@Param("id") int id);
+
     @Query("SELECT p FROM Player p ORDER BY p.id")
     List<Player> findAllOrderedById();
+
+    // one statement for a batch of players and their profiles
+    @Query("SELECT p FROM Player p LEFT JOIN FETCH p.playerProfile WHERE p.id IN :ids")
+    List<Player> findAllByIdWithProfile(@Param("ids") List<Integer> ids);
+
+    // keyset page: seeks past the last seen id instead of counting an OFFSET
+    @Query("SELECT p FROM Player p LEFT JOIN FETCH p.playerProfile WHERE p.id > :after ORDER BY p.id")
+    List<Player> findPageAfter(@Param("after") int after, Limit limit);
+
+    // forward-only cursor over the whole table; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Player p LEFT JOIN FETCH p.playerProfile ORDER BY p.id")
+    Stream<Player> streamAllOrderedById();
+
+    // the player's own columns and version, e.g. to report rows just changed by a bulk update
+    @Query("SELECT p.id AS id, p.name AS name, p.nationality AS nationality, p.birthDate AS birthDate, "
+            + "p.titles AS titles, p.version AS version FROM Player p WHERE p.id IN :ids")
+    List<DetailsView> findDetailsByIdIn(@Param("ids") List<Integer> ids);
+
+    // just what the leaderboard keeps per player, without loading entities
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS id, p.name AS name, p.titles AS titles, p.version AS version FROM Player p")
+    Stream<StandingView> streamStandings();
+
+    interface VersionView {
+        Integer getVersion();
+
+        Integer getProfileVersion();
+    }
+
+    interface DetailsView {
+        Integer getId();
+
+        String getName();
+
+        String getNationality();
+
+        Date getBirthDate();
+
+        Integer getTitles();
+
+        Integer getVersion();
+    }
+
+    interface StandingView {
+        Integer getId();
+
+        String getName();
+
+        Integer getTitles();
+
+        Integer getVersion();
+    }
 }
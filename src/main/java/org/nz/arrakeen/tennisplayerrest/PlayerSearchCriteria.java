@@ -0,0 +1,111 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Optional player filters. Only the filters that are set become predicates, so the
+ * database sees a query it can serve from the matching index. Ranges are inclusive.
+ */
+public class PlayerSearchCriteria {
+    private String nationality;
+    private Integer minTitles;
+    private Integer maxTitles;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate bornFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate bornTo;
+
+    private String namePrefix;
+
+    public Predicate toPredicate(Root<Player> root, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (nationality != null) {
+            predicates.add(cb.equal(root.get("nationality"), nationality));
+        }
+        if (minTitles != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("titles"), minTitles));
+        }
+        if (maxTitles != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("titles"), maxTitles));
+        }
+        if (bornFrom != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("birthDate"), Date.valueOf(bornFrom)));
+        }
+        if (bornTo != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("birthDate"), Date.valueOf(bornTo)));
+        }
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            // a plain prefix LIKE can still use the name index
+            predicates.add(cb.like(root.get("name"), escapeLike(namePrefix) + "%", '\\'));
+        }
+        return cb.and(predicates.toArray(new Predicate[0]));
+    }
+
+    public boolean isEmpty() {
+        return nationality == null && minTitles == null && maxTitles == null
+                && bornFrom == null && bornTo == null && (namePrefix == null || namePrefix.isEmpty());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public String getNationality() {
+        return nationality;
+    }
+
+    public void setNationality(String nationality) {
+        this.nationality = nationality;
+    }
+
+    public Integer getMinTitles() {
+        return minTitles;
+    }
+
+    public void setMinTitles(Integer minTitles) {
+        this.minTitles = minTitles;
+    }
+
+    public Integer getMaxTitles() {
+        return maxTitles;
+    }
+
+    public void setMaxTitles(Integer maxTitles) {
+        this.maxTitles = maxTitles;
+    }
+
+    public LocalDate getBornFrom() {
+        return bornFrom;
+    }
+
+    public void setBornFrom(LocalDate bornFrom) {
+        this.bornFrom = bornFrom;
+    }
+
+    public LocalDate getBornTo() {
+        return bornTo;
+    }
+
+    public void setBornTo(LocalDate bornTo) {
+        this.bornTo = bornTo;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+}
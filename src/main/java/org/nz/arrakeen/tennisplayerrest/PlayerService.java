@@ -1,27 +1,189 @@
 package org.nz.arrakeen.tennisplayerrest;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 
 @Service
 public class PlayerService {
+    public static final String PLAYERS_CACHE = "players";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
     @Autowired
     private PlayerRepository repo;
 
+    @Autowired
+    private PlayerProfileRepository profileRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlayerPatcher patcher;
+
+    @Autowired
+    private PlayerCatalogVersion catalogVersion;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlayerHandleIndex handles;
+
+    @Autowired
+    private PlayerTitleCounters titleCounters;
+
+    @Value("${players.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${players.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${players.multi-get.batch-size:100}")
+    private int multiGetBatchSize;
+
     //method to return all players
     public List<Player> getAllPlayers() {
         return repo.findAllOrderedById();
     }
 
+    //method to return one keyset page of players with an id greater than 'after'
+    public PlayerPage getPlayersPage(int after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+
+        // fetch one extra row to find out whether another page follows
+        List<Player> players = repo.findPageAfter(after, Limit.of(pageSize + 1));
+        if (players.size() <= pageSize) {
+            return new PlayerPage(players, null);
+        }
+
+        List<Player> page = players.subList(0, pageSize);
+        return new PlayerPage(page, PlayerCursor.encode(page.get(pageSize - 1).getId()));
+    }
+
+    //method to search players by optional filters, sorted by one key and paged with a keyset cursor
+    public PlayerPage searchPlayers(PlayerSearchCriteria criteria, PlayerSort sort, boolean descending,
+                                    String cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        PlayerCursor.SearchPosition position = cursor != null ? PlayerCursor.decodeSearch(cursor, sort, descending) : null;
+
+        Specification<Player> spec = (root, query, cb) -> {
+            //load profiles in the same statement instead of one select per row
+            root.fetch("playerProfile", JoinType.LEFT);
+            query.orderBy(sort.orderBy(root, cb, descending));
+            Predicate predicate = criteria.toPredicate(root, cb);
+            if (position != null) {
+                predicate = cb.and(predicate,
+                        sort.after(root, cb, descending, position.getSortValue(), position.getLastId()));
+            }
+            return predicate;
+        };
+        // ordered by the specification: an unsorted query keeps its ORDER BY
+        List<Player> players = repo.findBy(spec, q -> q.limit(pageSize + 1).all());
+        if (players.size() <= pageSize) {
+            return new PlayerPage(players, null);
+        }
+
+        List<Player> page = players.subList(0, pageSize);
+        Player last = page.get(pageSize - 1);
+        return new PlayerPage(page, PlayerCursor.encodeSearch(sort, descending, sort.valueOf(last), last.getId()));
+    }
+
+    //method to load many players by id, profiles included, with one IN query per batch
+    public PlayerMultiGet<Player> getPlayers(List<Integer> ids) {
+        return PlayerMultiGet.load(ids, multiGetBatchSize, repo::findAllByIdWithProfile, Player::getId);
+    }
+
+    //method to write every player as newline-delimited JSON, one row at a time
+    @Transactional
+    public long exportPlayers(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Player.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+
+        try (Stream<Player> players = repo.streamAllOrderedById();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<Player> it = players.iterator();
+            while (it.hasNext()) {
+                Player player = it.next();
+                writer.writeValue(generator, player);
+                generator.writeRaw('\n');
+
+                //drop the row (and its cascaded profile) so the persistence context stays empty
+                entityManager.detach(player);
+
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
     //method to find player by id
+    @Cacheable(cacheNames = PLAYERS_CACHE, key = "#id")
     public Player getPlayer(int id) {
 
         Optional<Player> tempPlayer = repo.findById(id);
@@ -41,9 +203,132 @@ public class PlayerService {
     }
 
 
+    //method to find player by id without throwing on a miss (the hot 404 path); misses are not cached
+    @Cacheable(cacheNames = PLAYERS_CACHE, key = "#id", unless = "#result == null")
+    public Optional<Player> findPlayer(int id) {
+        return repo.findById(id);
+    }
+
+    //method to load a player again and replace its cached entry, e.g. one that misses flushed title increments
+    @CachePut(cacheNames = PLAYERS_CACHE, key = "#id", unless = "#result == null")
+    public Optional<Player> reloadPlayer(int id) {
+        return repo.findById(id);
+    }
+
+    //method to find the current ETag of a player without loading it
+    public String getPlayerETag(int id) {
+        return findPlayerETag(id)
+                .orElseThrow(() -> new PlayerNotFoundException("Player with id "+ id + " not found."));
+    }
+
+    public Optional<String> findPlayerETag(int id) {
+        return repo.findVersionById(id)
+                .map(v -> PlayerETags.of(v.getVersion(), v.getProfileVersion()));
+    }
+
+    //method to find the ETag of the whole player collection
+    public String getPlayersETag() {
+        return catalogVersion.current();
+    }
+
     //method to add player
     public Player addPlayer(Player p) {
-        // Use the direct save approach, but create a new instance without an ID
+        // Let JPA/Hibernate handle the ID generation
+        Player created = newPlayerFrom(p);
+        if (created.getPlayerProfile() != null) {
+            handles.checkAvailable(created.getPlayerProfile().getTwitter(), 0);
+        }
+        Player saved = repo.save(created);
+        catalogVersion.increment();
+        events.publishEvent(PlayerChangeEvent.created(saved));
+        return saved;
+    }
+
+    //method to add many players, committing every batchChunkSize rows in its own transaction
+    public List<PlayerBatchResult> addPlayers(Iterator<Player> players) {
+        List<PlayerBatchResult> results = new ArrayList<>();
+        List<Player> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        //handles claimed earlier in this request, which the index does not know about yet
+        Set<String> requestedHandles = new HashSet<>();
+
+        int index = 0;
+        while (players.hasNext()) {
+            Player p = players.next();
+            String problem = validateNewPlayer(p);
+            if (problem == null) {
+                problem = takenHandle(p, requestedHandles);
+            }
+            if (problem != null) {
+                results.add(PlayerBatchResult.failed(index, problem));
+            } else {
+                //reserve the slot so results stay in request order
+                results.add(null);
+                chunk.add(newPlayerFrom(p));
+                chunkIndexes.add(index);
+            }
+            index++;
+
+            if (chunk.size() >= batchChunkSize) {
+                insertChunk(chunk, chunkIndexes, results);
+            }
+        }
+        insertChunk(chunk, chunkIndexes, results);
+        catalogVersion.increment();
+        return results;
+    }
+
+    private void insertChunk(List<Player> chunk, List<Integer> chunkIndexes, List<PlayerBatchResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chunk.forEach(entityManager::persist);
+                //one flush sends the inserts as JDBC batches; clearing keeps memory flat across chunks
+                entityManager.flush();
+                entityManager.clear();
+                //published inside the transaction so listeners only hear about chunks that commit
+                chunk.forEach(player -> events.publishEvent(PlayerChangeEvent.created(player)));
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results.set(chunkIndexes.get(i), PlayerBatchResult.created(chunkIndexes.get(i), chunk.get(i).getId()));
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                results.set(chunkIndexes.get(i), PlayerBatchResult.failed(chunkIndexes.get(i),
+                        "Chunk rolled back: " + e.getMessage()));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    //a taken handle fails just that player instead of rolling back its whole chunk
+    private String takenHandle(Player p, Set<String> requestedHandles) {
+        String twitter = p.getPlayerProfile() != null ? p.getPlayerProfile().getTwitter() : null;
+        String key = PlayerProfile.keyOf(twitter);
+        if (key != null && (handles.isTaken(twitter, 0) || !requestedHandles.add(key))) {
+            return "Twitter handle " + twitter + " is already taken";
+        }
+        return null;
+    }
+
+    String validateNewPlayer(Player p) {
+        if (p == null) {
+            return "Player must not be null";
+        }
+        if (p.getName() == null || p.getName().trim().isEmpty() ||
+            p.getNationality() == null || p.getNationality().trim().isEmpty() ||
+            p.getBirthDate() == null ||
+            p.getTitles() < 0) {
+            return "All player attributes (name, nationality, birthDate, titles) must be provided and valid";
+        }
+        return null;
+    }
+
+    //create a new instance without an ID so the insert never merges into an existing row
+    Player newPlayerFrom(Player p) {
         Player player = new Player(
             p.getName(),
             p.getNationality(),
@@ -51,66 +336,302 @@ public class PlayerService {
             p.getTitles()
         );
         if (p.getPlayerProfile() != null) {
-            player.setPlayerProfile(p.getPlayerProfile());
+            PlayerProfile profile = p.getPlayerProfile();
+            profile.setId(0);
+            profile.setVersion(null);
+            player.setPlayerProfile(profile);
         }
-        // Let JPA/Hibernate handle the ID generation
-        return repo.save(player);
+        return player;
     }
 
-    //method to update player
-    public Player updatePlayer(int id, Player p) {
-        //get player object by Id
-        Optional<Player> tempPlayer = repo.findById(id);
-
-        Player player = null;
-
-        //if the Optional has a value, assign it to p
-        if(tempPlayer.isPresent())
-            player = tempPlayer.get();
-        else
-            throw new PlayerNotFoundException("Player with id "+ id + " not found.");
-
-        //update player information in database
-        player.setName(p.getName());
-        player.setNationality(p.getNationality());
-        player.setBirthDate(p.getBirthDate());
-        player.setTitles(p.getTitles());
-
-        //save updates
-        return repo.save(player);
+    //method to update player with a single UPDATE; the row count decides 404, or 412 when a version is expected
+    @CacheEvict(cacheNames = PLAYERS_CACHE, key = "#id")
+    public void updatePlayer(int id, Player p, Integer expectedVersion) {
+        // the row gets absolute titles, so buffered increments are dropped; no flush may run while it is locked
+        titleCounters.withoutFlush(() -> transactionTemplate.execute(status -> {
+            List<Integer> version = expectedVersion == null
+                    ? repo.updateDetailsReturningVersion(id, p.getName(), p.getNationality(), p.getBirthDate(), p.getTitles())
+                    : repo.updateDetailsReturningVersion(id, p.getName(), p.getNationality(), p.getBirthDate(),
+                            p.getTitles(), expectedVersion);
+            if (version.isEmpty()) {
+                throw missingOrModified(id, expectedVersion);
+            }
+            titleCounters.discard(List.of(id));
+            catalogVersion.increment();
+            // the new version lets listeners tell this change from one that committed before or after it
+            events.publishEvent(PlayerChangeEvent.detailsSet(
+                    details(id, p.getName(), p.getNationality(), p.getBirthDate(), p.getTitles(), version.get(0))));
+            return null;
+        }));
     }
 
-    //partial update
+    //partial update (JSON Merge Patch); a patched profile is also cached on its own
+    @Caching(evict = {
+        @CacheEvict(cacheNames = PLAYERS_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = PlayerProfileService.PROFILES_CACHE, allEntries = true,
+                    condition = "#playerPatch.containsKey('playerProfile')")
+    })
     public Player patch( int id, Map<String, Object> playerPatch) {
+        if (!playerPatch.containsKey("titles")) {
+            return patchPlayer(id, playerPatch);
+        }
+        // patched titles replace buffered increments, same as updateTitles
+        return titleCounters.withoutFlush(() -> transactionTemplate.execute(status -> {
+            Player saved = patchPlayer(id, playerPatch);
+            titleCounters.discard(List.of(id));
+            return saved;
+        }));
+    }
+
+    private Player patchPlayer(int id, Map<String, Object> playerPatch) {
 
         Optional<Player> player = repo.findById(id);
 
         if(player.isPresent()) {
-            playerPatch.forEach( (key, value) -> {
-                Field field = ReflectionUtils.findField(Player.class, key);
-                ReflectionUtils.makeAccessible(field);
-                ReflectionUtils.setField(field, player.get(), value);
-            });
+            patcher.apply(player.get(), playerPatch);
+            PlayerProfile profile = player.get().getPlayerProfile();
+            if (profile != null) {
+                handles.checkAvailable(profile.getTwitter(), profile.getId());
+            }
         } else {
             throw new PlayerNotFoundException("Player with id " + id + " not found.");
         }
-        return repo.save(player.get());
+        // flushed at once so the row is locked, and the event carries the new version, inside a caller's transaction
+        Player saved = repo.saveAndFlush(player.get());
+        catalogVersion.increment();
+        events.publishEvent(PlayerChangeEvent.patched(saved));
+        return saved;
     }
 
-    @Transactional
+    //the bulk JPQL update bypasses the persistence context, so the cached entity must go
+    @CacheEvict(cacheNames = PLAYERS_CACHE, key = "#id")
     public void updateTitles(int id, int titles) {
-        repo.updateTitles(id, titles);
+        titleCounters.withoutFlush(() -> transactionTemplate.execute(status -> {
+            repo.updateTitles(id, titles);
+            // increments buffered before this write must not be flushed on top of it
+            titleCounters.discard(List.of(id));
+            catalogVersion.increment();
+            // read back while the update still holds the row lock, so the event carries the version it produced
+            repo.findDetailsByIdIn(List.of(id)).forEach(row -> events.publishEvent(PlayerChangeEvent.titlesSet(details(row))));
+            return null;
+        }));
     }
 
-    //delete a player
-    public String deletePlayer(int id) {
-        Optional<Player> tempPlayer = repo.findById(id);
-
-        if(tempPlayer.isEmpty()) {
-            throw new PlayerNotFoundException("Player with id "+ id + " not found.");
+    //delete a player with one statement, plus one for its profile (cascade done by hand, so drop cached profiles too)
+    @Transactional
+    @Caching(evict = {
+        @CacheEvict(cacheNames = PLAYERS_CACHE, key = "#id"),
+        @CacheEvict(cacheNames = PlayerProfileService.PROFILES_CACHE, allEntries = true)
+    })
+    public String deletePlayer(int id, Integer expectedVersion) {
+        List<Integer> profileIds = expectedVersion == null
+                ? repo.deleteReturningProfileId(id)
+                : repo.deleteReturningProfileId(id, expectedVersion);
+        if (profileIds.isEmpty()) {
+            throw missingOrModified(id, expectedVersion);
+        }
+        if (profileIds.get(0) != null) {
+            profileRepo.deleteDirectly(profileIds.get(0));
         }
 
-        repo.delete(tempPlayer.get());
+        catalogVersion.increment();
+        events.publishEvent(PlayerChangeEvent.deleted(id));
         return "Player with id "+ id +" deleted";
     }
+
+    //method to set the same columns on many players: one set-based UPDATE per chunk, each chunk its own transaction
+    public PlayerBulkResult bulkUpdate(PlayerBulkRequest request) {
+        PlayerBulkRequest.Changes set = request.getSet();
+        if (set == null || (set.getNationality() == null && set.getBirthDate() == null && set.getTitles() == null)) {
+            throw new IllegalArgumentException("set must contain at least one of nationality, birthDate, titles");
+        }
+        if (set.getNationality() != null && set.getNationality().trim().isEmpty()) {
+            throw new IllegalArgumentException("nationality must not be blank");
+        }
+        if (set.getTitles() != null && set.getTitles() < 0) {
+            throw new IllegalArgumentException("titles must not be negative");
+        }
+
+        // the columns listeners are told were set
+        Set<PlayerChangeEvent.Column> columns = EnumSet.noneOf(PlayerChangeEvent.Column.class);
+        if (set.getNationality() != null) {
+            columns.add(PlayerChangeEvent.Column.NATIONALITY);
+        }
+        if (set.getBirthDate() != null) {
+            columns.add(PlayerChangeEvent.Column.BIRTH_DATE);
+        }
+        if (set.getTitles() != null) {
+            columns.add(PlayerChangeEvent.Column.TITLES);
+        }
+
+        return inChunks(request, false, set.getTitles() != null, chunk -> {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<Player> update = cb.createCriteriaUpdate(Player.class);
+            Root<Player> root = update.from(Player.class);
+            if (set.getNationality() != null) {
+                update.set(root.<String>get("nationality"), set.getNationality());
+            }
+            if (set.getBirthDate() != null) {
+                update.set(root.<Date>get("birthDate"), set.getBirthDate());
+            }
+            if (set.getTitles() != null) {
+                update.set(root.<Integer>get("titles"), set.getTitles());
+            }
+            // bulk updates skip Hibernate's versioning, so the version is bumped explicitly
+            update.set(root.<Integer>get("version"), cb.sum(root.<Integer>get("version"), 1));
+            update.where(root.get("id").in(chunk.ids()));
+
+            int updated = entityManager.createQuery(update).executeUpdate();
+            if (set.getTitles() != null) {
+                // buffered increments predate the new titles
+                titleCounters.discard(chunk.ids());
+            }
+            // read the rows back while the chunk is still locked: each event carries that row's new version
+            for (PlayerRepository.DetailsView row : repo.findDetailsByIdIn(chunk.ids())) {
+                events.publishEvent(PlayerChangeEvent.detailsSet(details(row), columns));
+            }
+            return updated;
+        });
+    }
+
+    //method to delete many players (and their profiles) with set-based DELETEs, one transaction per chunk
+    public PlayerBulkResult bulkDelete(PlayerBulkRequest request) {
+        PlayerBulkResult result = inChunks(request, true, false, chunk -> {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaDelete<Player> delete = cb.createCriteriaDelete(Player.class);
+            Root<Player> root = delete.from(Player.class);
+            delete.where(root.get("id").in(chunk.ids()));
+            int deleted = entityManager.createQuery(delete).executeUpdate();
+
+            // players first: they hold the foreign key
+            if (!chunk.profileIds().isEmpty()) {
+                CriteriaDelete<PlayerProfile> profiles = cb.createCriteriaDelete(PlayerProfile.class);
+                profiles.where(profiles.from(PlayerProfile.class).get("id").in(chunk.profileIds()));
+                entityManager.createQuery(profiles).executeUpdate();
+            }
+            chunk.ids().forEach(id -> events.publishEvent(PlayerChangeEvent.deleted(id)));
+            return deleted;
+        });
+        Cache profiles = cacheManager.getCache(PlayerProfileService.PROFILES_CACHE);
+        if (profiles != null && result.getAffected() > 0) {
+            profiles.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Walks the players selected by ids or filter in id order, bulkChunkSize at a time. Each chunk
+     * is locked by its select (so the statement that follows changes exactly those rows), handed to
+     * the action and committed before the next one starts. With replacesTitles no title flush runs
+     * while a chunk holds its locks, so the action can discard pending increments without waiting
+     * for a flush that waits for those locks.
+     */
+    private PlayerBulkResult inChunks(PlayerBulkRequest request, boolean withProfiles, boolean replacesTitles,
+                                      ToIntFunction<BulkChunk> action) {
+        List<Integer> ids = request.getIds();
+        PlayerSearchCriteria filter = request.getFilter();
+        if ((ids == null) == (filter == null)) {
+            throw new IllegalArgumentException("Exactly one of ids or filter must be given");
+        }
+        if (ids != null && ids.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        if (filter != null && filter.isEmpty()) {
+            throw new IllegalArgumentException("filter must set at least one criterion");
+        }
+        List<Integer> sortedIds = ids != null ? ids.stream().distinct().sorted().toList() : null;
+
+        Cache players = cacheManager.getCache(PLAYERS_CACHE);
+        long affected = 0;
+        int chunks = 0;
+        int after = Integer.MIN_VALUE;
+        int next = 0;
+        while (sortedIds == null || next < sortedIds.size()) {
+            List<Integer> requested = sortedIds != null
+                    ? sortedIds.subList(next, Math.min(sortedIds.size(), next + bulkChunkSize)) : null;
+            int from = after;
+            BulkChunk chunk;
+            int changed;
+            try {
+                BulkChunk[] selected = new BulkChunk[1];
+                TransactionCallback<Integer> work = status -> {
+                    selected[0] = lockChunk(filter, requested, from, withProfiles);
+                    return selected[0].ids().isEmpty() ? 0 : action.applyAsInt(selected[0]);
+                };
+                changed = replacesTitles
+                        ? titleCounters.withoutFlush(() -> transactionTemplate.execute(work))
+                        : transactionTemplate.execute(work);
+                chunk = selected[0];
+            } catch (RuntimeException e) {
+                return new PlayerBulkResult(affected, chunks, "Stopped after " + chunks + " chunks: " + e.getMessage());
+            }
+
+            if (players != null) {
+                chunk.ids().forEach(players::evict);
+            }
+            if (changed > 0) {
+                affected += changed;
+                chunks++;
+                catalogVersion.increment();
+            }
+            if (sortedIds != null) {
+                next += requested.size();
+            } else if (chunk.ids().size() < bulkChunkSize) {
+                break;
+            } else {
+                after = chunk.ids().get(chunk.ids().size() - 1);
+            }
+        }
+        return new PlayerBulkResult(affected, chunks, null);
+    }
+
+    //ids (and profile ids) of the next chunk, row-locked until the transaction ends
+    private BulkChunk lockChunk(PlayerSearchCriteria filter, List<Integer> requested, int after, boolean withProfiles) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Player> root = query.from(Player.class);
+        query.multiselect(root.get("id"), root.join("playerProfile", JoinType.LEFT).get("id"));
+        query.where(requested != null
+                ? root.get("id").in(requested)
+                : cb.and(filter.toPredicate(root, cb), cb.greaterThan(root.get("id"), after)));
+        query.orderBy(cb.asc(root.get("id")));
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(bulkChunkSize)
+                .getResultList();
+        List<Integer> ids = new ArrayList<>(rows.size());
+        List<Integer> profileIds = new ArrayList<>();
+        for (Tuple row : rows) {
+            ids.add(row.get(0, Integer.class));
+            Integer profileId = row.get(1, Integer.class);
+            if (withProfiles && profileId != null) {
+                profileIds.add(profileId);
+            }
+        }
+        return new BulkChunk(ids, profileIds);
+    }
+
+    //the player's own columns as written by a direct UPDATE, for change events
+    private static Player details(int id, String name, String nationality, Date birthDate, int titles, int version) {
+        Player details = new Player(name, nationality, birthDate, titles);
+        details.setId(id);
+        details.setVersion(version);
+        return details;
+    }
+
+    private static Player details(PlayerRepository.DetailsView row) {
+        return details(row.getId(), row.getName(), row.getNationality(), row.getBirthDate(), row.getTitles(), row.getVersion());
+    }
+
+    private record BulkChunk(List<Integer> ids, List<Integer> profileIds) {
+    }
+
+    //a write that matched no row: tell a missing player from a stale version (costs a query only on failure)
+    private RuntimeException missingOrModified(int id, Integer expectedVersion) {
+        if (expectedVersion != null && repo.findVersionById(id).isPresent()) {
+            return new PlayerVersionMismatchException(id);
+        }
+        return new PlayerNotFoundException("Player with id "+ id + " not found.");
+    }
 }
@@ -0,0 +1,350 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable, column-oriented copy of every player and its profile, ordered by id.
+ * <p>
+ * Each attribute lives in its own array, so the whole catalog costs a handful of arrays
+ * instead of an entity, a profile and a dirty-checking snapshot per row, and repeated
+ * nationalities share one string. A snapshot is never modified: {@link #apply} merges a
+ * batch of changes into fresh arrays and returns the next snapshot, so readers holding
+ * the old one need no locks. Only one thread may call {@link #apply} at a time.
+ */
+public final class PlayerSnapshot {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final long version;
+    private final int[] ids;
+    private final String[] names;
+    private final String[] nationalities;
+    private final long[] birthDates;
+    private final int[] titles;
+    private final int[] versions;
+    // 0 means the player has no profile
+    private final int[] profileIds;
+    private final String[] twitters;
+    private final int[] profileVersions;
+    // canonical nationality strings in use, shared by successive snapshots and only touched by apply
+    private final Map<String, String> nationalityPool;
+
+    private volatile long footprint = -1;
+
+    private PlayerSnapshot(long version, Builder b) {
+        this.version = version;
+        this.ids = b.ids;
+        this.names = b.names;
+        this.nationalities = b.nationalities;
+        this.birthDates = b.birthDates;
+        this.titles = b.titles;
+        this.versions = b.versions;
+        this.profileIds = b.profileIds;
+        this.twitters = b.twitters;
+        this.profileVersions = b.profileVersions;
+        this.nationalityPool = b.nationalityPool;
+    }
+
+    public static PlayerSnapshot empty() {
+        return new Builder(0, new HashMap<>()).build(0);
+    }
+
+    //rows must arrive in ascending id order
+    public static PlayerSnapshot of(Iterator<Row> rowsById) {
+        Builder b = new Builder(1024, new HashMap<>());
+        int lastId = Integer.MIN_VALUE;
+        while (rowsById.hasNext()) {
+            Row row = rowsById.next();
+            if (row.id() <= lastId) {
+                throw new IllegalStateException("Players must be ordered by id, got " + row.id() + " after " + lastId);
+            }
+            lastId = row.id();
+            b.add(row);
+        }
+        return b.build(0);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    //a detached copy of the player, or null when the snapshot does not contain it
+    public Player find(int id) {
+        int i = Arrays.binarySearch(ids, id);
+        return i >= 0 ? toPlayer(i) : null;
+    }
+
+    //same contract as PlayerService.getPlayersPage
+    public PlayerPage page(int after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        int pageSize = Math.min(limit, PlayerService.MAX_PAGE_SIZE);
+
+        int start = Arrays.binarySearch(ids, after);
+        start = start >= 0 ? start + 1 : -start - 1;
+        int end = (int) Math.min(ids.length, (long) start + pageSize);
+
+        List<Player> players = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            players.add(toPlayer(i));
+        }
+        String nextCursor = end < ids.length && end > start ? PlayerCursor.encode(ids[end - 1]) : null;
+        return new PlayerPage(players, nextCursor);
+    }
+
+    //the next snapshot with all changes applied in order; this one is left as it was
+    public PlayerSnapshot apply(List<Change> changes) {
+        // final state per touched id; a null value means the player is gone
+        TreeMap<Integer, Row> changed = new TreeMap<>();
+        for (Change c : changes) {
+            Row current = changed.containsKey(c.id()) ? changed.get(c.id()) : rowAt(Arrays.binarySearch(ids, c.id()));
+            switch (c.type()) {
+                case CREATED -> changed.put(c.id(), c.row());
+                // commits may be reported out of order, so an older row version never wins
+                // and an update never brings back a player that is already gone
+                case UPDATED, PATCHED -> {
+                    if (current != null && c.row().version() >= current.version()) {
+                        changed.put(c.id(), c.row());
+                    }
+                }
+                // these carry the row as read back after the write: the newer version wins
+                case DETAILS_SET, TITLES_SET, TITLES_INCREMENTED -> {
+                    if (current != null && c.row().version() > current.version()) {
+                        changed.put(c.id(), current.withDetails(c.row()));
+                    }
+                }
+                case DELETED -> changed.put(c.id(), null);
+            }
+        }
+
+        int newSize = ids.length;
+        // nationalities that lost a player; pooled ones no player has any more are dropped below
+        Set<String> released = new HashSet<>();
+        for (Map.Entry<Integer, Row> e : changed.entrySet()) {
+            int at = Arrays.binarySearch(ids, e.getKey());
+            if (at >= 0) {
+                String old = nationalities[at];
+                if (old != null && (e.getValue() == null || !old.equals(e.getValue().nationality()))) {
+                    released.add(old);
+                }
+                if (e.getValue() == null) {
+                    newSize--;
+                }
+            } else if (e.getValue() != null) {
+                newSize++;
+            }
+        }
+
+        // one merge pass: untouched runs are copied with System.arraycopy
+        Builder b = new Builder(newSize, nationalityPool);
+        int i = 0;
+        for (Map.Entry<Integer, Row> e : changed.entrySet()) {
+            int next = Arrays.binarySearch(ids, i, ids.length, e.getKey());
+            int runEnd = next >= 0 ? next : -next - 1;
+            b.copy(this, i, runEnd);
+            i = next >= 0 ? next + 1 : runEnd;
+            if (e.getValue() != null) {
+                b.add(e.getValue());
+            }
+        }
+        b.copy(this, i, ids.length);
+        PlayerSnapshot next = b.build(version + 1);
+        next.releaseUnused(released);
+        return next;
+    }
+
+    //removes from the pool the released nationalities this snapshot no longer uses; stops once all are found in use
+    private void releaseUnused(Set<String> released) {
+        for (int i = 0; i < nationalities.length && !released.isEmpty(); i++) {
+            if (nationalities[i] != null) {
+                released.remove(nationalities[i]);
+            }
+        }
+        released.forEach(nationalityPool::remove);
+    }
+
+    /**
+     * Estimated heap retained by this snapshot: the column arrays plus every distinct string.
+     * Assumes compressed references and Latin-1 strings, so it is a lower bound for other
+     * JVM settings. Computed once, on first request.
+     */
+    public long footprintBytes() {
+        long f = footprint;
+        if (f < 0) {
+            int n = ids.length;
+            f = 5 * arrayBytes(n, 4) + arrayBytes(n, 8) + 3 * arrayBytes(n, 4);
+            Set<String> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String[] column : List.of(names, nationalities, twitters)) {
+                for (String s : column) {
+                    if (s != null && seen.add(s)) {
+                        f += 24 + arrayBytes(s.length(), 1);
+                    }
+                }
+            }
+            footprint = f;
+        }
+        return f;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return (16 + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    private Row rowAt(int i) {
+        if (i < 0) {
+            return null;
+        }
+        return new Row(ids[i], names[i], nationalities[i], birthDates[i], titles[i], versions[i],
+                profileIds[i], twitters[i], profileVersions[i]);
+    }
+
+    private Player toPlayer(int i) {
+        PlayerProfile profile = null;
+        if (profileIds[i] != 0) {
+            profile = new PlayerProfile(twitters[i]);
+            profile.setId(profileIds[i]);
+            profile.setVersion(profileVersions[i]);
+        }
+        Player player = new Player(names[i], nationalities[i],
+                birthDates[i] != NO_DATE ? new Date(birthDates[i]) : null, titles[i], profile);
+        player.setId(ids[i]);
+        player.setVersion(versions[i]);
+        return player;
+    }
+
+    /**
+     * One player as stored in the columns.
+     */
+    public record Row(int id, String name, String nationality, long birthDate, int titles, int version,
+                      int profileId, String twitter, int profileVersion) {
+
+        public static Row of(Player p) {
+            PlayerProfile profile = p.getPlayerProfile();
+            return new Row(p.getId(), p.getName(), p.getNationality(),
+                    p.getBirthDate() != null ? p.getBirthDate().getTime() : NO_DATE,
+                    p.getTitles(), p.getVersion() != null ? p.getVersion() : 0,
+                    profile != null ? profile.getId() : 0,
+                    profile != null ? profile.getTwitter() : null,
+                    profile != null && profile.getVersion() != null ? profile.getVersion() : 0);
+        }
+
+        //the player's own columns and version as read back after a direct UPDATE; the profile stays
+        Row withDetails(Row details) {
+            return new Row(id, details.name(), details.nationality(), details.birthDate(), details.titles(),
+                    details.version(), profileId, twitter, profileVersion);
+        }
+    }
+
+    /**
+     * A committed change, with the player's values copied out of the event when it was published.
+     */
+    public record Change(PlayerChangeEvent.Type type, int id, Row row) {
+
+        public static Change of(PlayerChangeEvent event) {
+            Row row = event.getPlayer() != null ? Row.of(event.getPlayer()) : null;
+            return new Change(event.getType(), event.getPlayerId(), row);
+        }
+    }
+
+    private static final class Builder {
+        private final Map<String, String> nationalityPool;
+        private int size;
+        private int[] ids;
+        private String[] names;
+        private String[] nationalities;
+        private long[] birthDates;
+        private int[] titles;
+        private int[] versions;
+        private int[] profileIds;
+        private String[] twitters;
+        private int[] profileVersions;
+
+        Builder(int capacity, Map<String, String> nationalityPool) {
+            this.nationalityPool = nationalityPool;
+            ids = new int[capacity];
+            names = new String[capacity];
+            nationalities = new String[capacity];
+            birthDates = new long[capacity];
+            titles = new int[capacity];
+            versions = new int[capacity];
+            profileIds = new int[capacity];
+            twitters = new String[capacity];
+            profileVersions = new int[capacity];
+        }
+
+        void add(Row r) {
+            ensureCapacity(size + 1);
+            ids[size] = r.id();
+            names[size] = r.name();
+            nationalities[size] = r.nationality() != null
+                    ? nationalityPool.computeIfAbsent(r.nationality(), n -> n) : null;
+            birthDates[size] = r.birthDate();
+            titles[size] = r.titles();
+            versions[size] = r.version();
+            profileIds[size] = r.profileId();
+            twitters[size] = r.twitter();
+            profileVersions[size] = r.profileVersion();
+            size++;
+        }
+
+        void copy(PlayerSnapshot s, int from, int to) {
+            int n = to - from;
+            if (n <= 0) {
+                return;
+            }
+            ensureCapacity(size + n);
+            System.arraycopy(s.ids, from, ids, size, n);
+            System.arraycopy(s.names, from, names, size, n);
+            System.arraycopy(s.nationalities, from, nationalities, size, n);
+            System.arraycopy(s.birthDates, from, birthDates, size, n);
+            System.arraycopy(s.titles, from, titles, size, n);
+            System.arraycopy(s.versions, from, versions, size, n);
+            System.arraycopy(s.profileIds, from, profileIds, size, n);
+            System.arraycopy(s.twitters, from, twitters, size, n);
+            System.arraycopy(s.profileVersions, from, profileVersions, size, n);
+            size += n;
+        }
+
+        PlayerSnapshot build(long version) {
+            resize(size);
+            return new PlayerSnapshot(version, this);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                resize(Math.max(capacity, ids.length + (ids.length >> 1)));
+            }
+        }
+
+        private void resize(int capacity) {
+            if (capacity == ids.length) {
+                return;
+            }
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            nationalities = Arrays.copyOf(nationalities, capacity);
+            birthDates = Arrays.copyOf(birthDates, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            profileIds = Arrays.copyOf(profileIds, capacity);
+            twitters = Arrays.copyOf(twitters, capacity);
+            profileVersions = Arrays.copyOf(profileVersions, capacity);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Sort keys supported by player search. Every key is paired with id as a tie-breaker,
+ * which makes the order total and lets keyset cursors resume exactly where a page ended.
+ * Players without a value for a nullable key come after all others, in either direction.
+ */
+public enum PlayerSort {
+    ID("id", false) {
+        @Override
+        String valueOf(Player player) {
+            return Integer.toString(player.getId());
+        }
+
+        @Override
+        Comparable<?> parse(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    NAME("name", false) {
+        @Override
+        String valueOf(Player player) {
+            return player.getName();
+        }
+
+        @Override
+        Comparable<?> parse(String value) {
+            return value;
+        }
+    },
+    TITLES("titles", false) {
+        @Override
+        String valueOf(Player player) {
+            return Integer.toString(player.getTitles());
+        }
+
+        @Override
+        Comparable<?> parse(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    BIRTH_DATE("birthDate", true) {
+        @Override
+        String valueOf(Player player) {
+            return player.getBirthDate() != null ? player.getBirthDate().toLocalDate().toString() : null;
+        }
+
+        @Override
+        Comparable<?> parse(String value) {
+            return Date.valueOf(LocalDate.parse(value));
+        }
+    };
+
+    private final String property;
+    // the column may hold null, so order and cursor must place those rows explicitly
+    private final boolean nullable;
+
+    PlayerSort(String property, boolean nullable) {
+        this.property = property;
+        this.nullable = nullable;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static PlayerSort fromParameter(String parameter) {
+        for (PlayerSort sort : values()) {
+            if (sort.property.equals(parameter)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Cannot sort players by '" + parameter + "'");
+    }
+
+    //the sort value of a player, as stored in a cursor; null when the player has none
+    abstract String valueOf(Player player);
+
+    abstract Comparable<?> parse(String value);
+
+    //ORDER BY this key then id; Spring's Sort cannot place nulls in a criteria query, so it is built here
+    List<Order> orderBy(Root<Player> root, CriteriaBuilder cb, boolean descending) {
+        Path<Integer> id = root.get("id");
+        Order byId = descending ? cb.desc(id) : cb.asc(id);
+        if (this == ID) {
+            return List.of(byId);
+        }
+
+        Path<?> path = root.get(property);
+        Order byValue;
+        if (nullable) {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            byValue = descending ? hcb.desc(path, false) : hcb.asc(path, false);
+        } else {
+            byValue = descending ? cb.desc(path) : cb.asc(path);
+        }
+        return List.of(byValue, byId);
+    }
+
+    //rows strictly after (sortValue, lastId) in this order; a null sortValue means the page ended among the nulls
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Predicate after(Root<Player> root, CriteriaBuilder cb, boolean descending, String sortValue, int lastId) {
+        Path<Integer> id = root.get("id");
+        Predicate idAfter = descending ? cb.lessThan(id, lastId) : cb.greaterThan(id, lastId);
+        if (this == ID) {
+            return idAfter;
+        }
+
+        Path path = root.get(property);
+        if (sortValue == null) {
+            return cb.and(cb.isNull(path), idAfter);
+        }
+        Comparable value = parse(sortValue);
+        Predicate beyond = descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+        Predicate after = cb.or(beyond, cb.and(cb.equal(path, value), idAfter));
+        // comparisons never match null, and nulls come last
+        return nullable ? cb.or(after, cb.isNull(path)) : after;
+    }
+}
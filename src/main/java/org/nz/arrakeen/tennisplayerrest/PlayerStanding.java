@@ -0,0 +1,33 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+//one row of the titles leaderboard; players with equal titles share a rank
+public class PlayerStanding {
+
+    private final int rank;
+    private final int id;
+    private final String name;
+    private final int titles;
+
+    public PlayerStanding(int rank, int id, String name, int titles) {
+        this.rank = rank;
+        this.id = id;
+        this.name = name;
+        this.titles = titles;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTitles() {
+        return titles;
+    }
+}
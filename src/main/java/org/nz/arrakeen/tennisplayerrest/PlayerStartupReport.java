@@ -0,0 +1,28 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs how many players the application came up with and how long it took, which for the
+ * durable profile is the recovery time after a restart (opening the database file plus loading
+ * the in-memory views). The same duration is published by Spring Boot as application.ready.time.
+ */
+@Component
+public class PlayerStartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStartupReport.class);
+
+    @Autowired
+    private PlayerRepository repo;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        long ready = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        log.info("Ready with {} players after {} ms", repo.count(), ready);
+    }
+}
@@ -0,0 +1,244 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Absorbs high-rate title increments in memory and writes them back in batches.
+ * <p>
+ * Each player gets a {@link LongAdder}, so concurrent scorers update striped cells instead
+ * of contending on one row lock. A scheduled flush drains every adder and applies the
+ * deltas with a single JDBC batch of relative {@code titles = titles + ?} updates, which
+ * never overwrite each other. A read that races with a flush can briefly miss the
+ * delta being written.
+ * <p>
+ * The flush also remembers the row version each player reached. A cached entity loaded
+ * just before a flush committed may be stored after the flush evicted it; its pending
+ * delta is already zero, so {@link #isStale} tells readers to load it again. Those versions
+ * are kept for two flush intervals, which bounds them (and the adders, dropped once a flush
+ * finds them idle) to the players scored recently; a load that takes longer than one
+ * interval to reach the cache is not caught.
+ */
+@Component
+public class PlayerTitleCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerTitleCounters.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE player SET titles = GREATEST(titles + ?, 0), version = version + 1 WHERE id = ?";
+
+    private static final String ROWS_SQL =
+            "SELECT id, name, nationality, birth_date, titles, version FROM player WHERE id IN (%s)";
+
+    private final Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    // row version after the flush that changed each player, for this interval and the one before
+    private volatile Map<Integer, Integer> flushedVersions = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Integer> previousFlushedVersions = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlayerCatalogVersion catalogVersion;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    public void increment(int id, long delta) {
+        LongAdder adder = pending.computeIfAbsent(id, k -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(id) != adder) {
+            // a flush dropped the adder as idle meanwhile; move what is left in it to the current one
+            long left = adder.sumThenReset();
+            if (left != 0) {
+                increment(id, left);
+            }
+        }
+    }
+
+    public long pendingDelta(int id) {
+        LongAdder adder = pending.get(id);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    //copy of the player with increments that have not been flushed yet
+    public Player withPending(Player player) {
+        long delta = pendingDelta(player.getId());
+        if (delta == 0) {
+            return player;
+        }
+        Player copy = new Player(player.getName(), player.getNationality(), player.getBirthDate(),
+                (int) Math.max(0, Math.min(Integer.MAX_VALUE, player.getTitles() + delta)), player.getPlayerProfile());
+        copy.setId(player.getId());
+        copy.setVersion(player.getVersion());
+        return copy;
+    }
+
+    //drops increments not flushed yet, for a write that replaces titles; waits for a running flush to commit first.
+    //Inside a transaction the dropped deltas come back if it rolls back.
+    public void discard(Collection<Integer> ids) {
+        flushLock.lock();
+        try {
+            Map<Integer, Long> dropped = new HashMap<>();
+            for (Integer id : ids) {
+                LongAdder adder = pending.get(id);
+                long delta = adder != null ? adder.sumThenReset() : 0;
+                if (delta != 0) {
+                    dropped.put(id, delta);
+                }
+            }
+            if (!dropped.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_ROLLED_BACK) {
+                            dropped.forEach(PlayerTitleCounters.this::increment);
+                        }
+                    }
+                });
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //runs work while no flush can start, e.g. a transaction that locks rows before it calls discard
+    public <T> T withoutFlush(Supplier<T> work) {
+        flushLock.lock();
+        try {
+            return work.get();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //true when the player was read before the last flush of its increments committed
+    public boolean isStale(Player player) {
+        Integer flushed = flushedVersions.get(player.getId());
+        if (flushed == null) {
+            flushed = previousFlushedVersions.get(player.getId());
+        }
+        return flushed != null && player.getVersion() != null && player.getVersion() < flushed;
+    }
+
+    @Scheduled(fixedDelayString = "${players.titles.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            // versions recorded two intervals ago are dropped; a cached copy older than them is long replaced
+            previousFlushedVersions = flushedVersions;
+            flushedVersions = new ConcurrentHashMap<>();
+
+            List<Object[]> batch = new ArrayList<>();
+            pending.forEach((id, adder) -> {
+                // getAndSet per cell: a concurrent add lands either in this sum or in the next flush
+                long delta = adder.sumThenReset();
+                if (delta != 0) {
+                    batch.add(new Object[] { delta, id });
+                } else if (pending.remove(id, adder)) {
+                    // idle since the last flush; an add that raced the removal is moved on here or by increment
+                    long left = adder.sumThenReset();
+                    if (left != 0) {
+                        increment(id, left);
+                    }
+                }
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, Player> flushed;
+            try {
+                flushed = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                    // the rows stay locked until commit, so these are the rows (and versions) the flush produced;
+                    // a player missing here was deleted in the meantime
+                    Map<Integer, Player> rows = rowsOf(batch);
+                    for (Object[] row : batch) {
+                        Player after = rows.get((Integer) row[1]);
+                        if (after != null) {
+                            events.publishEvent(PlayerChangeEvent.titlesIncremented(after, (Long) row[0]));
+                        }
+                    }
+                    return rows;
+                });
+            } catch (RuntimeException e) {
+                // put the deltas back so nothing is lost; the next flush retries
+                batch.forEach(row -> increment((Integer) row[1], (Long) row[0]));
+                log.warn("Title increment flush failed for {} players, will retry", batch.size(), e);
+                return;
+            }
+
+            Cache players = cacheManager.getCache(PlayerService.PLAYERS_CACHE);
+            for (Object[] row : batch) {
+                Integer id = (Integer) row[1];
+                Player after = flushed.get(id);
+                if (after == null) {
+                    // the player was deleted in the meantime
+                    pending.remove(id);
+                    flushedVersions.remove(id);
+                    previousFlushedVersions.remove(id);
+                } else {
+                    // recorded before the eviction, so a stale entity cached after it is recognised
+                    flushedVersions.merge(id, after.getVersion(), Math::max);
+                }
+                if (players != null) {
+                    players.evict(id);
+                }
+            }
+            catalogVersion.increment();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //the players' own columns and versions, keyed by id
+    private Map<Integer, Player> rowsOf(List<Object[]> batch) {
+        Object[] ids = batch.stream().map(row -> row[1]).toArray();
+        String sql = String.format(ROWS_SQL, String.join(",", Collections.nCopies(ids.length, "?")));
+        Map<Integer, Player> rows = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            Player p = new Player(rs.getString("name"), rs.getString("nationality"), rs.getDate("birth_date"),
+                    rs.getInt("titles"));
+            p.setId(rs.getInt("id"));
+            p.setVersion(rs.getInt("version"));
+            rows.put(p.getId(), p);
+        }, ids);
+        return rows;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
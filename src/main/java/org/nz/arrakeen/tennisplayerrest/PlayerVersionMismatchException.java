@@ -0,0 +1,12 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * The client's If-Match version no longer matches the stored player; answered with 412.
+ */
+public class PlayerVersionMismatchException extends RuntimeException {
+
+    public PlayerVersionMismatchException(int id) {
+        // an expected outcome of optimistic locking, so no stack trace
+        super("Player with id " + id + " has been modified since it was read.", null, false, false);
+    }
+}
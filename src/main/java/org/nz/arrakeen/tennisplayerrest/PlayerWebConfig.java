@@ -0,0 +1,62 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Binary representations for bulk consumers: besides JSON, the player and profile endpoints
+ * produce and consume CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}),
+ * chosen by the Accept and Content-Type headers.
+ * <p>
+ * The binary converters are built from Spring Boot's {@link Jackson2ObjectMapperBuilder}, so they
+ * share every customization of the JSON mapper (date formats, modules, {@code spring.jackson.*}).
+ * Responses vary by Accept, which is announced so shared caches keep the formats apart.
+ */
+@Configuration
+public class PlayerWebConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Autowired
+    private PlayerAdmissionControl admissionControl;
+
+    //the builder bean is prototype-scoped, so each converter gets its own copy
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // first, so a rejected request costs nothing else; streams run far longer than any latency target
+        registry.addInterceptor(admissionControl)
+                .addPathPatterns("/players/**", "/profiles/**")
+                .excludePathPatterns("/players/changes", "/players/export");
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/players/**", "/profiles/**");
+    }
+}
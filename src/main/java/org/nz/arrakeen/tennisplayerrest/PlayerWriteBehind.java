@@ -0,0 +1,372 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Write-behind path for {@code POST /players} and {@code PUT /players/{id}} requests sent with
+ * {@code Prefer: respond-async}.
+ * <p>
+ * Accepted writes wait in a bounded in-memory queue; a second PUT for a player that is still
+ * queued replaces the first instead of taking another slot. One writer thread takes up to
+ * {@code batch-size} writes at a time and commits them in a single transaction, falling back
+ * to one transaction per write if the batch fails. When the queue is full the request is
+ * rejected with {@link PlayerWriteQueueFullException} rather than blocking a request thread.
+ * <p>
+ * Crash safety: a 202 means accepted, not durable. A graceful shutdown drains the queue after
+ * the web server has stopped taking requests; a crash or kill loses whatever was still queued,
+ * at most {@code capacity} writes. Clients that must not lose a write poll the ticket until it
+ * is {@code COMMITTED}, or use the synchronous API.
+ */
+@Component
+public class PlayerWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerWriteBehind.class);
+
+    @Value("${players.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${players.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${players.write-behind.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${players.write-behind.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    @Value("${players.write-behind.ticket-ttl:10m}")
+    private Duration ticketTtl;
+
+    @Autowired
+    private PlayerService service;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlayerCatalogVersion catalogVersion;
+
+    @Autowired
+    private PlayerHandleIndex handles;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlayerTitleCounters titleCounters;
+
+    // creates are keyed by their own PendingWrite, updates by player id so they coalesce
+    private final LinkedHashMap<Object, PendingWrite> queue = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    private Cache<String, PlayerWriteTicket> tickets;
+    private Counter rejected;
+    private Counter coalesced;
+    private Timer lag;
+
+    @PostConstruct
+    public void init() {
+        tickets = Caffeine.newBuilder()
+                .expireAfterWrite(ticketTtl)
+                // several times the queue, so pending tickets are not evicted by size
+                .maximumSize(Math.max(10L * capacity, 10_000))
+                .build();
+        Gauge.builder("players.write_behind.queued", this, PlayerWriteBehind::queued)
+                .description("Writes accepted but not yet committed")
+                .register(meterRegistry);
+        rejected = Counter.builder("players.write_behind.rejected")
+                .description("Writes refused with 429 because the queue was full")
+                .register(meterRegistry);
+        coalesced = Counter.builder("players.write_behind.coalesced")
+                .description("Updates merged into a queued update for the same player")
+                .register(meterRegistry);
+        lag = Timer.builder("players.write_behind.lag")
+                .description("Time from accepting a write to committing it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    //queue a new player; validated up front so a bad request still gets its 400
+    public PlayerWriteTicket create(Player player) {
+        String problem = service.validateNewPlayer(player);
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        if (player.getPlayerProfile() != null) {
+            handles.checkAvailable(player.getPlayerProfile().getTwitter(), 0);
+        }
+        return enqueue(null, player);
+    }
+
+    //queue a full update of an existing player (same fields as PlayerService.updatePlayer)
+    public PlayerWriteTicket update(int id, Player player) {
+        return enqueue(id, player);
+    }
+
+    public PlayerWriteTicket ticket(String ticketId) {
+        return tickets.getIfPresent(ticketId);
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PlayerWriteTicket enqueue(Integer id, Player player) {
+        PlayerWriteTicket ticket = PlayerWriteTicket.pending(UUID.randomUUID().toString(), id);
+        lock.lock();
+        try {
+            if (!accepting) {
+                throw new PlayerWriteQueueFullException("Asynchronous writes are not being accepted right now", retryAfterSeconds);
+            }
+            PendingWrite write = id != null ? queue.get(id) : null;
+            if (write != null) {
+                // last write wins, as it would have with two synchronous PUTs
+                write.player = player;
+                write.tickets.add(ticket.getId());
+                coalesced.increment();
+            } else {
+                if (queue.size() >= capacity) {
+                    rejected.increment();
+                    throw new PlayerWriteQueueFullException("Write queue is full (" + capacity + " pending writes)", retryAfterSeconds);
+                }
+                write = new PendingWrite(id, player);
+                write.tickets.add(ticket.getId());
+                queue.put(id != null ? id : write, write);
+                notEmpty.signal();
+            }
+            tickets.put(ticket.getId(), ticket);
+        } finally {
+            lock.unlock();
+        }
+        return ticket;
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<PendingWrite> batch = new ArrayList<>();
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    notEmpty.awaitUninterruptibly();
+                }
+                Iterator<PendingWrite> it = queue.values().iterator();
+                while (it.hasNext() && batch.size() < batchSize) {
+                    batch.add(it.next());
+                    it.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // never let the writer thread die; the tickets say what happened
+                log.error("Write-behind batch of {} writes failed", batch.size(), e);
+                batch.forEach(w -> resolve(w, Outcome.failed(w.playerId, e.getMessage())));
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        List<Outcome> outcomes;
+        try {
+            // updates set absolute titles: no title flush may run while their rows are locked (see writeAll)
+            boolean replacesTitles = batch.stream().anyMatch(w -> w.playerId != null);
+            outcomes = replacesTitles
+                    ? titleCounters.withoutFlush(() -> transactionTemplate.execute(status -> writeAll(batch)))
+                    : transactionTemplate.execute(status -> writeAll(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                outcomes = List.of(Outcome.failed(batch.get(0).playerId, e.getMessage()));
+            } else {
+                // find the write that broke the batch without failing the others
+                log.warn("Write-behind batch of {} writes rolled back, retrying one by one", batch.size(), e);
+                batch.forEach(w -> write(List.of(w)));
+                return;
+            }
+        }
+
+        org.springframework.cache.Cache players = cacheManager.getCache(PlayerService.PLAYERS_CACHE);
+        boolean changed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite w = batch.get(i);
+            Outcome outcome = outcomes.get(i);
+            if (outcome.failure() == null) {
+                changed = true;
+                if (w.playerId != null && players != null) {
+                    players.evict(w.playerId);
+                }
+            }
+            resolve(w, outcome);
+        }
+        if (changed) {
+            catalogVersion.increment();
+        }
+    }
+
+    private List<Outcome> writeAll(List<PendingWrite> batch) {
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        List<PlayerChangeEvent> changes = new ArrayList<>(batch.size());
+        List<Integer> updated = new ArrayList<>();
+        for (PendingWrite w : batch) {
+            if (w.playerId == null) {
+                Player created = service.newPlayerFrom(w.player);
+                entityManager.persist(created);
+                changes.add(PlayerChangeEvent.created(created));
+                outcomes.add(Outcome.committed(created));
+                continue;
+            }
+            Player player = entityManager.find(Player.class, w.playerId);
+            if (player == null) {
+                outcomes.add(Outcome.failed(w.playerId, "Player with id " + w.playerId + " not found."));
+                continue;
+            }
+            player.setName(w.player.getName());
+            player.setNationality(w.player.getNationality());
+            player.setBirthDate(w.player.getBirthDate());
+            player.setTitles(w.player.getTitles());
+            updated.add(player.getId());
+            changes.add(PlayerChangeEvent.updated(player));
+            outcomes.add(Outcome.committed(player));
+        }
+        // one flush sends the whole batch as JDBC batches (ids and versions are set afterwards)
+        entityManager.flush();
+        // increments buffered before these writes must not be flushed on top of their titles
+        if (!updated.isEmpty()) {
+            titleCounters.discard(updated);
+        }
+        //published inside the transaction so listeners only hear about batches that commit
+        changes.forEach(events::publishEvent);
+        entityManager.clear();
+        return outcomes;
+    }
+
+    private void resolve(PendingWrite w, Outcome outcome) {
+        lag.record(System.nanoTime() - w.acceptedAt, TimeUnit.NANOSECONDS);
+        for (String ticketId : w.tickets) {
+            tickets.put(ticketId, outcome.failure() == null
+                    ? PlayerWriteTicket.committed(ticketId, outcome.player().getId())
+                    : PlayerWriteTicket.failed(ticketId, outcome.playerId(), outcome.failure()));
+        }
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            accepting = true;
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        writer = new Thread(this::runWriter, "player-write-behind");
+        // a crash must not wait for the queue; graceful shutdown drains it in stop()
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            accepting = false;
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(drainTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int left = queued();
+        if (left > 0) {
+            log.warn("Write-behind queue not drained within {} ms, {} writes lost", drainTimeoutMs, left);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //stopped after the web server (DEFAULT_PHASE - 2048), so no write arrives while draining
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static final class PendingWrite {
+        private final Integer playerId;
+        private final List<String> tickets = new ArrayList<>(1);
+        private final long acceptedAt = System.nanoTime();
+        // replaced when a later update for the same player is coalesced into this one
+        private Player player;
+
+        PendingWrite(Integer playerId, Player player) {
+            this.playerId = playerId;
+            this.player = player;
+        }
+    }
+
+    private record Outcome(Player player, Integer playerId, String failure) {
+
+        static Outcome committed(Player player) {
+            return new Outcome(player, player.getId(), null);
+        }
+
+        static Outcome failed(Integer playerId, String failure) {
+            return new Outcome(null, playerId, failure);
+        }
+    }
+}
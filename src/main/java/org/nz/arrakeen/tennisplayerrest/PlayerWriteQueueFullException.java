@@ -0,0 +1,19 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * Thrown when the write-behind queue cannot take another write; answered with 429 and Retry-After.
+ */
+public class PlayerWriteQueueFullException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PlayerWriteQueueFullException(String message, int retryAfterSeconds) {
+        // expected under load, so no stack trace
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,55 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+/**
+ * State of a write accepted with {@code Prefer: respond-async}, polled at {@link #getStatusUrl()}.
+ * Writes coalesced into a later one for the same player share its outcome.
+ */
+public class PlayerWriteTicket {
+
+    public enum Status { PENDING, COMMITTED, FAILED }
+
+    private final String id;
+    private final Status status;
+    private final Integer playerId;
+    private final String message;
+
+    private PlayerWriteTicket(String id, Status status, Integer playerId, String message) {
+        this.id = id;
+        this.status = status;
+        this.playerId = playerId;
+        this.message = message;
+    }
+
+    public static PlayerWriteTicket pending(String id, Integer playerId) {
+        return new PlayerWriteTicket(id, Status.PENDING, playerId, null);
+    }
+
+    public static PlayerWriteTicket committed(String id, int playerId) {
+        return new PlayerWriteTicket(id, Status.COMMITTED, playerId, null);
+    }
+
+    public static PlayerWriteTicket failed(String id, Integer playerId, String message) {
+        return new PlayerWriteTicket(id, Status.FAILED, playerId, message);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    //null while a new player is still pending
+    public Integer getPlayerId() {
+        return playerId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getStatusUrl() {
+        return "/players/writes/" + id;
+    }
+}
@@ -2,8 +2,14 @@ package org.nz.arrakeen.tennisplayerrest;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// run the cache advice outside the transaction advice so evictions happen after commit
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableScheduling
 public class TennisPlayerRestApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,88 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives GET /players/{id} with many concurrent clients and reports throughput and p99.
+ * Subclasses start the application in one execution mode each; the cache is disabled so
+ * every request blocks on JDBC.
+ */
+@Tag("load")
+public abstract class AbstractPlayerLoadTest {
+
+    private static final int CONCURRENCY = 400;
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    protected abstract String mode();
+
+    @Test
+    public void testGetPlayerUnderHighConcurrency() throws Exception {
+        run(WARMUP_REQUESTS_PER_CLIENT);
+
+        long start = System.nanoTime();
+        long[] latencies = run(REQUESTS_PER_CLIENT);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        long p50 = latencies[(int) (latencies.length * 0.50)];
+        long p99 = latencies[(int) (latencies.length * 0.99)];
+        System.out.printf("[%s] %d requests, %d concurrent: %.0f req/s, p50 %.2f ms, p99 %.2f ms%n",
+                mode(), latencies.length, CONCURRENCY, latencies.length / seconds, p50 / 1e6, p99 / 1e6);
+    }
+
+    private long[] run(int requestsPerClient) throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        long[] latencies = new long[CONCURRENCY * requestsPerClient];
+        List<Future<?>> clients = new ArrayList<>(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONCURRENCY; c++) {
+                int offset = c * requestsPerClient;
+                clients.add(executor.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/players/" + (1 + (offset + i) % 3))).build();
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[offset + i] = System.nanoTime() - t0;
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : clients) {
+                f.get();
+            }
+        }
+        assertEquals(0, failures.get(), "non-200 responses");
+        return latencies;
+    }
+}
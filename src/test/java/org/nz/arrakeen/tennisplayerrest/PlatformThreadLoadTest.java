@@ -0,0 +1,15 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:load-platform",
+    "spring.cache.type=none"
+})
+public class PlatformThreadLoadTest extends AbstractPlayerLoadTest {
+
+    @Override
+    protected String mode() {
+        return "platform threads";
+    }
+}
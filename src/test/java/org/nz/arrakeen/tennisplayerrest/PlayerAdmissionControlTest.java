@@ -0,0 +1,93 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// a bucket of two requests that refills once a second; own database as for the other extra contexts
+@SpringBootTest(properties = {
+    "players.admission.enabled=true",
+    "players.admission.client.rate=1",
+    "players.admission.client.burst=2",
+    "spring.datasource.url=jdbc:h2:mem:admission"
+})
+@AutoConfigureMockMvc
+public class PlayerAdmissionControlTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testClientOverItsRateGets429WithRetryAfter() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/1").with(from("10.0.0.1")))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/2").with(from("10.0.0.1")))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/3").with(from("10.0.0.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.statusCode").value(429))
+                .andExpect(jsonPath("$.path").value("/players/3"));
+
+        // buckets are per client
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/3").with(from("10.0.0.2")))
+                .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    @Test
+    public void testLimitRejectsBeyondInFlight() {
+        PlayerAdmissionControl.AdaptiveLimit limit = new PlayerAdmissionControl.AdaptiveLimit(2, 1, 10, TARGET, 0.9);
+
+        assertEquals(1, limit.tryAcquire());
+        assertEquals(2, limit.tryAcquire());
+        assertEquals(-1, limit.tryAcquire());
+
+        limit.release();
+        assertEquals(2, limit.tryAcquire());
+    }
+
+    @Test
+    public void testLimitGrowsWhenFastAndShrinksWhenSlow() {
+        PlayerAdmissionControl.AdaptiveLimit limit = new PlayerAdmissionControl.AdaptiveLimit(10, 2, 12, TARGET, 0.5);
+
+        // fast, but the limit was barely used: no evidence it can grow
+        limit.tryAcquire();
+        limit.release(TARGET / 2, 1, false);
+        assertEquals(10, limit.limit());
+
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET / 2, 8, false);
+        }
+        assertEquals(12, limit.limit());
+
+        limit.tryAcquire();
+        limit.release(TARGET * 2, 8, false);
+        assertEquals(6, limit.limit());
+
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET / 2, 1, true);
+        }
+        assertEquals(2, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+}
@@ -0,0 +1,143 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Overloads GET /players/{id} behind a slow downstream (at most 4 lookups at a time, 20 ms each,
+ * so about 200 req/s) with far more concurrent clients than that, once without and once with
+ * admission control, and reports p99 of the requests that were served. All clients share one
+ * address, so the per-client bucket is off and only the concurrency limit is exercised.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:load-admission",
+    "spring.cache.type=none",
+    "players.admission.enabled=true",
+    "players.admission.client.rate=0"
+})
+public class PlayerAdmissionLoadTest {
+
+    private static final int CONCURRENCY = 400;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final long MAX_ADMITTED_P99_NANOS = Duration.ofMillis(500).toNanos();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PlayerAdmissionControl admissionControl;
+
+    @SpyBean
+    private PlayerService service;
+
+    private final Semaphore downstream = new Semaphore(4);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeEach
+    public void slowDownstream() {
+        doAnswer(invocation -> {
+            downstream.acquireUninterruptibly();
+            try {
+                Thread.sleep(20);
+            } finally {
+                downstream.release();
+            }
+            return invocation.callRealMethod();
+        }).when(service).findPlayer(anyInt());
+    }
+
+    @Test
+    public void testP99StaysBoundedUnderOverload() throws Exception {
+        ReflectionTestUtils.setField(admissionControl, "enabled", false);
+        Result unprotected = run();
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        Result admitted = run();
+
+        System.out.printf("Overload without admission control: %d served, p99 %.0f ms%n",
+                unprotected.served(), unprotected.p99() / 1e6);
+        System.out.printf("Overload with admission control: %d served, %d rejected with 503, p99 %.0f ms%n",
+                admitted.served(), admitted.rejected(), admitted.p99() / 1e6);
+
+        assertEquals(CONCURRENCY * REQUESTS_PER_CLIENT, unprotected.served(), "all served without admission control");
+        assertEquals(0, admitted.other(), "only 200 and 503 responses");
+        assertTrue(admitted.served() > 0, "some requests admitted");
+        assertTrue(admitted.rejected() > 0, "excess shed");
+        assertTrue(admitted.p99() < MAX_ADMITTED_P99_NANOS, "p99 of admitted requests within 500 ms");
+        assertTrue(admitted.p99() < unprotected.p99(), "p99 lower than without admission control");
+    }
+
+    private Result run() throws Exception {
+        long[] latencies = new long[CONCURRENCY * REQUESTS_PER_CLIENT];
+        int[] statuses = new int[latencies.length];
+        List<Future<?>> clients = new ArrayList<>(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CONCURRENCY; c++) {
+                int offset = c * REQUESTS_PER_CLIENT;
+                clients.add(executor.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/players/" + (1 + (offset + i) % 3))).build();
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[offset + i] = System.nanoTime() - t0;
+                        statuses[offset + i] = response.statusCode();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : clients) {
+                f.get();
+            }
+        }
+
+        List<Long> served = new ArrayList<>();
+        int rejected = 0;
+        int other = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            if (statuses[i] == 200) {
+                served.add(latencies[i]);
+            } else if (statuses[i] == 503) {
+                rejected++;
+            } else {
+                other++;
+            }
+        }
+        long[] sorted = served.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        long p99 = sorted.length > 0 ? sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] : 0;
+        return new Result(sorted.length, rejected, other, p99);
+    }
+
+    private record Result(int served, int rejected, int other, long p99) {
+    }
+}
@@ -0,0 +1,69 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inserts the same number of players one request at a time and as one batch, reports the rows
+ * per second of each and checks that batching is the faster of the two.
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:load-batch-ingest")
+public class PlayerBatchIngestLoadTest {
+
+    private static final int ROWS = 2000;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Test
+    public void testBatchIngestIsFasterThanSingleInserts() {
+        // Warm up both paths so the comparison is not dominated by class loading
+        playerService.addPlayer(newPlayer("Warmup", 0));
+        playerService.addPlayers(players("Warmup", 100).iterator());
+
+        List<Player> single = players("Single", ROWS);
+        long start = System.nanoTime();
+        for (Player p : single) {
+            playerService.addPlayer(p);
+        }
+        double singleRowsPerSec = rowsPerSecond(ROWS, System.nanoTime() - start);
+
+        List<Player> batch = players("Batch", ROWS);
+        start = System.nanoTime();
+        List<PlayerBatchResult> results = playerService.addPlayers(batch.iterator());
+        double batchRowsPerSec = rowsPerSecond(ROWS, System.nanoTime() - start);
+
+        System.out.printf("Player ingest: single insert %.0f rows/sec, batch insert %.0f rows/sec (%.1fx)%n",
+                singleRowsPerSec, batchRowsPerSec, batchRowsPerSec / singleRowsPerSec);
+
+        assertEquals(ROWS, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == PlayerBatchResult.Status.CREATED));
+        assertEquals(ROWS, results.stream().map(PlayerBatchResult::getId).distinct().count());
+        assertTrue(batchRowsPerSec > singleRowsPerSec, "batch insert faster than single inserts");
+    }
+
+    private static List<Player> players(String prefix, int count) {
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(newPlayer(prefix + " " + i, i % 30));
+        }
+        return players;
+    }
+
+    private static Player newPlayer(String name, int titles) {
+        return new Player(name, "Testland", Date.valueOf("1995-01-01"), titles);
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,59 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PlayerBatchIngestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testBatchEndpointReportsPerItemResults() throws Exception {
+        String body = "[{\"name\":\"Batch One\",\"nationality\":\"Spain\",\"birthDate\":\"01-02-1990\",\"titles\":1},"
+                + "{\"name\":\"\",\"nationality\":\"Spain\",\"birthDate\":\"01-02-1990\",\"titles\":1},"
+                + "{\"name\":\"Batch Three\",\"nationality\":\"Chile\",\"birthDate\":\"03-04-1991\",\"titles\":2,"
+                + "\"playerProfile\":{\"twitter\":\"@batchthree\"}}]";
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/batch")
+                .content(body)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id", notNullValue()))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[2].status").value("CREATED"));
+    }
+
+    @Test
+    public void testBatchEndpointAcceptsNdjson() throws Exception {
+        String body = "{\"name\":\"Line One\",\"nationality\":\"Peru\",\"birthDate\":\"01-02-1990\",\"titles\":0}\n"
+                + "{\"name\":\"Line Two\",\"nationality\":\"Peru\",\"birthDate\":\"01-02-1990\",\"titles\":4}\n";
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/batch")
+                .content(body)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].status", everyItem(is("CREATED"))));
+    }
+}
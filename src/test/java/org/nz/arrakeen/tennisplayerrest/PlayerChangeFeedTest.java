@@ -0,0 +1,131 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerChangeFeedTest {
+
+    private final PlayerChangeFeed feed = new PlayerChangeFeed();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(feed, "bufferSize", 4);
+        ReflectionTestUtils.setField(feed, "subscriberQueue", 2);
+        ReflectionTestUtils.setField(feed, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(feed, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(feed, "meterRegistry", meterRegistry);
+        feed.init();
+    }
+
+    private void created(int id) {
+        Player p = new Player("Player " + id, "Nowhere", Date.valueOf("1990-01-01"), id);
+        p.setId(id);
+        feed.onPlayerChange(PlayerChangeEvent.created(p));
+    }
+
+    @Test
+    public void testResumesAfterLastEventId() throws Exception {
+        created(1);
+        created(2);
+        created(3);
+        long last = feed.lastSequence();
+
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        feed.subscribe(Long.toString(last - 2), emitter);
+        String second = emitter.next();
+        assertTrue(second.startsWith("id:" + (last - 1) + "\nevent:created\n"), second);
+        assertTrue(second.contains("\"playerId\":2"), second);
+        assertTrue(emitter.next().contains("\"playerId\":3"));
+
+        Player after = new Player("Player 3", "Nowhere", Date.valueOf("1990-01-01"), 9);
+        after.setId(3);
+        after.setVersion(1);
+        feed.onPlayerChange(PlayerChangeEvent.titlesSet(after));
+        String live = emitter.next();
+        assertTrue(live.contains("event:titles_set") && live.contains("\"titles\":9"), live);
+        assertFalse(live.contains("\"player\""), live);
+    }
+
+    @Test
+    public void testResetWhenLastEventIdIsNoLongerBuffered() throws Exception {
+        long first = feed.lastSequence() + 1;
+        for (int id = 1; id <= 6; id++) {
+            created(id);
+        }
+
+        RecordingEmitter overwritten = new RecordingEmitter(null);
+        feed.subscribe(Long.toString(first), overwritten);
+        assertTrue(overwritten.next().startsWith("id:" + feed.lastSequence() + "\nevent:reset\n"));
+
+        RecordingEmitter unknown = new RecordingEmitter(null);
+        feed.subscribe("not-a-number", unknown);
+        assertTrue(unknown.next().contains("event:reset"));
+    }
+
+    @Test
+    public void testSlowSubscriberIsDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        feed.subscribe(null, slow);
+        assertEquals(1, feed.subscribers());
+
+        created(1);
+        // the sender is now stuck writing the first event; two more fill its queue
+        slow.next();
+        created(2);
+        created(3);
+        assertEquals(1, feed.subscribers());
+        created(4);
+
+        assertEquals(0, feed.subscribers());
+        assertEquals(1.0, meterRegistry.get("players.changes.dropped").counter().count());
+        release.countDown();
+    }
+
+    //records each event as its SSE text; optionally blocks every send until released
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        private final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData()));
+            frames.add(frame.toString());
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        String next() throws InterruptedException {
+            String frame = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "no event within 5 seconds");
+            return frame;
+        }
+    }
+}
@@ -4,19 +4,35 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import jakarta.persistence.EntityManagerFactory;
 
 import java.sql.Date;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +43,21 @@ public class PlayerControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private PlayerTitleCounters titleCounters;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlayerChangeFeed changeFeed;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private ObjectMapper objectMapper = JsonMapper.builder()
         .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
         .build();
@@ -52,6 +83,142 @@ public class PlayerControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].name", notNullValue()));
     }
 
+    @Test
+    public void testGetPlayersPageFollowsCursor() throws Exception {
+        String link = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .param("limit", "1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(next)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", greaterThan(1)));
+    }
+
+    @Test
+    public void testGetPlayersInvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .param("cursor", "not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportPlayersAsNdjson() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 3);
+        assertTrue(body.endsWith("\n"));
+
+        int previousId = 0;
+        for (String line : lines) {
+            Player player = objectMapper.readValue(line, Player.class);
+            assertNotNull(player.getName());
+            assertTrue(player.getId() > previousId);
+            previousId = player.getId();
+        }
+    }
+
+    @Test
+    public void testSearchPlayersWithFiltersSortAndCursor() throws Exception {
+        String body = "[{\"name\":\"Search Ana\",\"nationality\":\"Searchland\",\"birthDate\":\"01-01-1990\",\"titles\":7},"
+                + "{\"name\":\"Search Bo\",\"nationality\":\"Searchland\",\"birthDate\":\"01-01-1991\",\"titles\":9},"
+                + "{\"name\":\"Search Cy\",\"nationality\":\"Searchland\",\"birthDate\":\"01-01-1992\",\"titles\":9},"
+                + "{\"name\":\"Other Di\",\"nationality\":\"Searchland\",\"birthDate\":\"01-01-1993\",\"titles\":1}]";
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/batch")
+                .content(body)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        String link = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/search")
+                .param("nationality", "Searchland")
+                .param("minTitles", "5")
+                .param("sort", "titles")
+                .param("direction", "desc")
+                .param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].titles").value(9))
+                .andExpect(jsonPath("$[1].titles").value(9))
+                .andExpect(header().exists("Link"))
+                .andReturn().getResponse().getHeader("Link");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get(link.substring(link.indexOf('<') + 1, link.indexOf('>')))
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Search Ana"))
+                .andExpect(header().doesNotExist("Link"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/search")
+                .param("namePrefix", "Search ")
+                .param("bornFrom", "1991-01-01")
+                .param("bornTo", "1991-12-31")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Search Bo"));
+    }
+
+    @Test
+    public void testSearchPlayersRejectsUnknownSort() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/search")
+                .param("sort", "ranking")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot sort players by 'ranking'"));
+    }
+
+    @Test
+    public void testSearchByBirthDatePagesAcrossMissingBirthDates() throws Exception {
+        createPlayer(new Player("Nullborn A", "Nullborn", Date.valueOf("1990-01-01"), 1));
+        int firstUnknown = createPlayer(new Player("Nullborn C1", "Nullborn", Date.valueOf("1995-01-01"), 1));
+        createPlayer(new Player("Nullborn B", "Nullborn", Date.valueOf("1991-01-01"), 1));
+        int secondUnknown = createPlayer(new Player("Nullborn C2", "Nullborn", Date.valueOf("1995-01-01"), 1));
+        // the API never stores a null birth date, but the column allows one
+        jdbcTemplate.update("UPDATE player SET birth_date = NULL WHERE id IN (?, ?)", firstUnknown, secondUnknown);
+
+        // one player per page, so cursors are issued on dated and undated players alike; undated come last
+        assertEquals(List.of("Nullborn A", "Nullborn B", "Nullborn C1", "Nullborn C2"),
+                searchedNames(MockMvcRequestBuilders.get("/players/search")
+                        .param("nationality", "Nullborn")
+                        .param("sort", "birthDate")
+                        .param("limit", "1")));
+        assertEquals(List.of("Nullborn B", "Nullborn A", "Nullborn C2", "Nullborn C1"),
+                searchedNames(MockMvcRequestBuilders.get("/players/search")
+                        .param("nationality", "Nullborn")
+                        .param("sort", "birthDate")
+                        .param("direction", "desc")
+                        .param("limit", "1")));
+    }
+
     @Test
     public void testGetPlayerById() throws Exception {
         // Test with player ID 1 which should exist in the database
@@ -64,6 +231,68 @@ public class PlayerControllerIntegrationTest {
                 .andExpect(jsonPath("$.name", notNullValue()));
     }
 
+    @Test
+    public void testGetPlayerConditionalRequest() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/2")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // a write bumps the version, so the old tag no longer matches
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/2/titles")
+                .content("11")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/2")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.titles").value(11));
+    }
+
+    @Test
+    public void testGetAllPlayersConditionalRequest() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        Player newPlayer = new Player("Carlos Alcaraz", "Spain", Date.valueOf("2003-05-05"), 16);
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(objectMapper.writeValueAsString(newPlayer))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
     @Test
     public void testGetPlayerNotFound() throws Exception {
         // Test with a player ID that should not exist
@@ -73,9 +302,59 @@ public class PlayerControllerIntegrationTest {
                 .andDo(print())
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.statusCode").value(404))
+                .andExpect(jsonPath("$.message").value("Player with id 999 not found."))
+                .andExpect(jsonPath("$.path").value("/players/999"))
+                .andExpect(jsonPath("$.timestamp", matchesPattern("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}")));
+
+        // the conditional path misses without loading the entity
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/999")
+                .header("If-None-Match", "\"v0\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.message").value("Player with id 999 not found."));
     }
 
+    @Test
+    public void testGetPlayerProfileNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/profiles/999")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.statusCode").value(404))
+                .andExpect(jsonPath("$.message").value("Player profile with id 999 not found."));
+    }
+
+    @Test
+    public void testBinaryContentNegotiation() throws Exception {
+        ObjectMapper cborMapper = new CBORMapper();
+
+        byte[] cbor = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/1")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(1, cborMapper.readTree(cbor).get("id").asInt());
+
+        Player newPlayer = new Player("Cbor Player", "Spain", Date.valueOf("1995-03-03"), 2);
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(cborMapper.writeValueAsBytes(objectMapper.valueToTree(newPlayer)))
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Cbor Player"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .accept(PlayerWebConfig.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PlayerWebConfig.APPLICATION_SMILE_VALUE));
+    }
+
     @Test
     public void testAddPlayer() throws Exception {
         Player newPlayer = new Player("Andy Murray", "Great Britain", Date.valueOf("1987-05-15"), 3);
@@ -191,6 +470,31 @@ public class PlayerControllerIntegrationTest {
                 .andExpect(jsonPath("$.titles").value(10));
     }
 
+    @Test
+    public void testPartialUpdateWithMergePatch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/2")
+                .content("{\"birthDate\":\"02-09-1986\",\"titles\":\"12\"}")
+                .contentType("application/merge-patch+json")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.birthDate").value("02-09-1986"))
+                .andExpect(jsonPath("$.titles").value(12));
+    }
+
+    @Test
+    public void testPartialUpdateUnknownField() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/2")
+                .content("{\"ranking\":1}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Field 'ranking' does not exist or cannot be patched"));
+    }
+
     @Test
     public void testPartialUpdateNotFound() throws Exception {
         Map<String, Object> updates = new HashMap<>();
@@ -227,6 +531,295 @@ public class PlayerControllerIntegrationTest {
                 .andExpect(jsonPath("$.titles").value(15));
     }
 
+    @Test
+    public void testCachedPlayerIsInvalidatedByTitleUpdate() throws Exception {
+        // Prime the cache
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/3")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // Bulk JPQL update must evict the cached entity
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/3/titles")
+                .content("42")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/3")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(42));
+
+        // Hit/miss counters are exposed through the actuator
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/cache.gets")
+                .param("tag", "cache:players")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThan(0.0)));
+    }
+
+    @Test
+    public void testRouteAndHibernateMetrics() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/search")
+                .param("nationality", "France")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // latency per route template and status
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/http.server.requests")
+                .param("tag", "uri:/players/search")
+                .param("tag", "status:200")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value", hasItem(greaterThan(0.0))));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/hibernate.query.executions")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThan(0.0)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/hikaricp.connections.acquire")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/actuator/metrics/jvm.gc.memory.allocated")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testIncrementTitles() throws Exception {
+        Player player = new Player("Increment Player", "Italy", Date.valueOf("2001-08-16"), 5);
+        String created = mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(objectMapper.writeValueAsString(player))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readValue(created, Player.class).getId();
+
+        for (int delta : new int[] { 2, 3 }) {
+            mockMvc.perform(MockMvcRequestBuilders
+                    .post("/players/" + id + "/titles/increments")
+                    .content(String.valueOf(delta))
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isAccepted());
+        }
+
+        // pending deltas are visible before the flush ...
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + id)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(10));
+
+        // ... and are not double counted after it
+        titleCounters.flush();
+        assertEquals(0, titleCounters.pendingDelta(id));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + id)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(10));
+    }
+
+    @Test
+    public void testFlushedIncrementsSurviveEntityCachedDuringFlush() throws Exception {
+        int id = createPlayer(new Player("Flush Race Player", "Italy", Date.valueOf("2001-08-16"), 5));
+        Cache players = cacheManager.getCache(PlayerService.PLAYERS_CACHE);
+
+        // a read loads the entity before the flush commits ...
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + id)).andExpect(status().isOk());
+        Player loadedBeforeFlush = players.get(id, Player.class);
+        assertNotNull(loadedBeforeFlush);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/" + id + "/titles/increments")
+                .content("4")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted());
+        titleCounters.flush();
+
+        // ... and stores it after the flush evicted the entry
+        players.put(id, loadedBeforeFlush);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + id)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(9));
+        assertEquals(9, players.get(id, Player.class).getTitles());
+    }
+
+    @Test
+    public void testTitlesResetDiscardsPendingIncrements() throws Exception {
+        int bulkReset = createPlayer(new Player("Season Reset Bulk", "Italy", Date.valueOf("2001-08-16"), 5));
+        int singleReset = createPlayer(new Player("Season Reset Single", "Italy", Date.valueOf("2001-08-16"), 5));
+        for (int id : new int[] { bulkReset, singleReset }) {
+            mockMvc.perform(MockMvcRequestBuilders
+                    .post("/players/" + id + "/titles/increments")
+                    .content("4")
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isAccepted());
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-update")
+                .content("{\"ids\":[" + bulkReset + "],\"set\":{\"titles\":0}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + singleReset + "/titles")
+                .content("2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals(0, titleCounters.pendingDelta(bulkReset));
+        assertEquals(0, titleCounters.pendingDelta(singleReset));
+
+        // nothing buffered before the reset is flushed on top of it
+        titleCounters.flush();
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + bulkReset))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + singleReset))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(2));
+    }
+
+    @Test
+    public void testPutDiscardsPendingIncrements() throws Exception {
+        Player player = new Player("Season Put", "Italy", Date.valueOf("2001-08-16"), 5);
+        int id = createPlayer(player);
+        incrementTitles(id, 4);
+
+        player.setTitles(7);
+        mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/" + id)
+                .content(objectMapper.writeValueAsString(player))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals(0, titleCounters.pendingDelta(id));
+
+        titleCounters.flush();
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(7));
+    }
+
+    @Test
+    public void testPatchedTitlesDiscardPendingIncrements() throws Exception {
+        int id = createPlayer(new Player("Season Patch", "Italy", Date.valueOf("2001-08-16"), 5));
+        incrementTitles(id, 4);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + id)
+                .content("{\"titles\":3}")
+                .contentType("application/merge-patch+json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(3));
+        assertEquals(0, titleCounters.pendingDelta(id));
+
+        titleCounters.flush();
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(3));
+    }
+
+    @Test
+    public void testAsyncPutDiscardsPendingIncrements() throws Exception {
+        Player player = new Player("Season Async Put", "Italy", Date.valueOf("2001-08-16"), 5);
+        int id = createPlayer(player);
+        incrementTitles(id, 4);
+
+        player.setTitles(6);
+        String location = mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/" + id)
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(player))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+        assertEquals(id, awaitCommitted(location));
+        assertEquals(0, titleCounters.pendingDelta(id));
+
+        titleCounters.flush();
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(6));
+    }
+
+    @Test
+    public void testIncrementTitlesNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/999/titles/increments")
+                .content("1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testLeaderboardFollowsChanges() throws Exception {
+        Player champion = new Player("Leaderboard Champion", "Nowhere", Date.valueOf("1990-01-01"), 1_000_000);
+
+        String responseContent = mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(objectMapper.writeValueAsString(champion))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int playerId = objectMapper.readValue(responseContent, Player.class).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/leaderboard?k=3")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].id").value(playerId))
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].titles").value(1_000_000));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + playerId + "/titles")
+                .content("0")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/leaderboard?k=1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(not(playerId)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete("/players/" + playerId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/leaderboard?k=" + PlayerLeaderboard.MAX_SIZE)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", not(hasItem(playerId))));
+    }
+
+    @Test
+    public void testLeaderboardRejectsInvalidSize() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/leaderboard?k=0")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testDeletePlayer() throws Exception {
         // First, create a player to delete
@@ -269,4 +862,395 @@ public class PlayerControllerIntegrationTest {
                 .andExpect(jsonPath("$.statusCode").value(404))
                 .andExpect(jsonPath("$.message").value("Player with id 999 not found."));
     }
+
+    @Test
+    public void testAsyncWritesAreCommittedBehindTicket() throws Exception {
+        Player newPlayer = new Player("Async Player", "Nowhere", Date.valueOf("1990-01-01"), 1);
+
+        String location = mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .header("Prefer", "respond-async, wait=5")
+                .content(objectMapper.writeValueAsString(newPlayer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.id", notNullValue()))
+                .andReturn().getResponse().getHeader("Location");
+
+        int playerId = awaitCommitted(location);
+
+        newPlayer.setName("Async Player Renamed");
+        String updateLocation = mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/" + playerId)
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(newPlayer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+
+        assertEquals(playerId, awaitCommitted(updateLocation));
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + playerId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Async Player Renamed"));
+    }
+
+    @Test
+    public void testAsyncWriteStillValidatesUpFront() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(new Player("", "Nowhere", Date.valueOf("1990-01-01"), 1)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/999")
+                .header("Prefer", "respond-async")
+                .content(objectMapper.writeValueAsString(new Player("Nobody", "Nowhere", Date.valueOf("1990-01-01"), 1)))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Player with id 999 not found."));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/writes/unknown")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testUpdateAndDeleteStatementCounts() throws Exception {
+        int withoutProfile = createPlayer(new Player("Counted", "Nowhere", Date.valueOf("1990-01-01"), 1));
+        PlayerProfile profile = new PlayerProfile("@counted");
+        Player counted = new Player("Counted Too", "Nowhere", Date.valueOf("1990-01-01"), 1);
+        counted.setPlayerProfile(profile);
+        int withProfile = createPlayer(counted);
+
+        // UPDATE, then one SELECT for the response body
+        assertEquals(2, statementsFor(MockMvcRequestBuilders
+                .put("/players/" + withoutProfile)
+                .content(objectMapper.writeValueAsString(new Player("Counted", "Elsewhere", Date.valueOf("1990-01-01"), 2)))
+                .contentType(MediaType.APPLICATION_JSON), 200));
+
+        // just the UPDATE
+        assertEquals(1, statementsFor(MockMvcRequestBuilders
+                .put("/players/" + withoutProfile)
+                .header("Prefer", "return=minimal")
+                .content(objectMapper.writeValueAsString(new Player("Counted", "Elsewhere", Date.valueOf("1990-01-01"), 3)))
+                .contentType(MediaType.APPLICATION_JSON), 204));
+
+        // DELETE of the player, plus one for its profile
+        assertEquals(1, statementsFor(MockMvcRequestBuilders.delete("/players/" + withoutProfile), 200));
+        assertEquals(2, statementsFor(MockMvcRequestBuilders.delete("/players/" + withProfile), 200));
+        assertEquals(1, statementsFor(MockMvcRequestBuilders.delete("/players/" + withProfile), 404));
+    }
+
+    @Test
+    public void testUpdateAndDeleteHonourIfMatch() throws Exception {
+        int playerId = createPlayer(new Player("Versioned", "Nowhere", Date.valueOf("1990-01-01"), 1));
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/players/" + playerId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        Player update = new Player("Versioned", "Elsewhere", Date.valueOf("1990-01-01"), 2);
+
+        String newEtag = mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/" + playerId)
+                .header("If-Match", etag)
+                .content(objectMapper.writeValueAsString(update))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nationality").value("Elsewhere"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // the first tag is stale now
+        mockMvc.perform(MockMvcRequestBuilders
+                .put("/players/" + playerId)
+                .header("If-Match", etag)
+                .content(objectMapper.writeValueAsString(update))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.statusCode").value(412));
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete("/players/" + playerId)
+                .header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete("/players/" + playerId)
+                .header("If-Match", newEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete("/players/" + playerId)
+                .header("If-Match", newEtag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testBulkUpdateAndDeleteByFilterAndIds() throws Exception {
+        int first = createPlayer(new Player("Bulk One", "Bulkland", Date.valueOf("1990-01-01"), 4));
+        int second = createPlayer(new Player("Bulk Two", "Bulkland", Date.valueOf("1991-01-01"), 7));
+        PlayerProfile profile = new PlayerProfile("@bulk");
+        Player withProfile = new Player("Bulk Three", "Bulkland", Date.valueOf("1992-01-01"), 9);
+        withProfile.setPlayerProfile(profile);
+        int third = createPlayer(withProfile);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-update")
+                .content("{\"filter\":{\"nationality\":\"Bulkland\"},\"set\":{\"nationality\":\"Retiredland\",\"titles\":0}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3))
+                .andExpect(jsonPath("$.error").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nationality").value("Retiredland"))
+                .andExpect(jsonPath("$.titles").value(0))
+                .andExpect(jsonPath("$.name").value("Bulk Two"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-delete")
+                .content("{\"ids\":[" + first + "," + third + ",999999]}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-delete")
+                .content("{\"filter\":{\"nationality\":\"Retiredland\"}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/" + third))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testBulkRequestNeedsExactlyOneSelection() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-delete")
+                .content("{\"ids\":[1],\"filter\":{\"nationality\":\"Spain\"}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Exactly one of ids or filter must be given"));
+
+        // an empty filter would match every player
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/bulk-update")
+                .content("{\"filter\":{},\"set\":{\"titles\":0}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testMultiGetPlayersKeepsOrderAndReportsMissing() throws Exception {
+        PlayerProfile profile = new PlayerProfile("@multiget");
+        Player withProfile = new Player("Multi Get", "Nowhere", Date.valueOf("1990-01-01"), 1);
+        withProfile.setPlayerProfile(profile);
+        int created = createPlayer(withProfile);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .param("ids", created + ",2,999999," + created)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[*].id", contains(created, 2)))
+                .andExpect(jsonPath("$.found[0].playerProfile.twitter").value("@multiget"))
+                .andExpect(jsonPath("$.missing", contains(999999)));
+
+        // players and their profiles come back from a single statement
+        assertEquals(1, statementsFor(MockMvcRequestBuilders.get("/players").param("ids", created + ",2"), 200));
+    }
+
+    @Test
+    public void testMultiGetProfiles() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders
+                .post("/profiles")
+                .content("{\"twitter\":\"@multi_profile\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int profileId = objectMapper.readValue(body, PlayerProfile.class).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/profiles")
+                .param("ids", "999999", String.valueOf(profileId))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[*].twitter", contains("@multi_profile")))
+                .andExpect(jsonPath("$.missing", contains(999999)));
+    }
+
+    @Test
+    public void testLookupByHandleFollowsChanges() throws Exception {
+        Player withProfile = new Player("Handle Owner", "Nowhere", Date.valueOf("1990-01-01"), 1);
+        withProfile.setPlayerProfile(new PlayerProfile("@HandleOwner"));
+        int playerId = createPlayer(withProfile);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/by-handle/handleowner"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(playerId))
+                .andExpect(header().exists("ETag"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/profiles/by-handle/@HANDLEOWNER"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.twitter").value("@HandleOwner"));
+
+        // unique regardless of case and '@'
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/profiles")
+                .content("{\"twitter\":\"handleOWNER\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.statusCode").value(409));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + playerId)
+                .content("{\"playerProfile\":{\"twitter\":\"@HandleRenamed\"}}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/by-handle/handleowner"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/by-handle/handlerenamed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(playerId));
+
+        // deleting the player takes its profile along
+        mockMvc.perform(MockMvcRequestBuilders.delete("/players/" + playerId))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/profiles/by-handle/handlerenamed"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testLookupByHandleOfProfileWithoutPlayer() throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders
+                .post("/profiles")
+                .content("{\"twitter\":\"@LoneProfile\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int profileId = objectMapper.readValue(body, PlayerProfile.class).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/profiles/by-handle/loneprofile"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(profileId));
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/by-handle/loneprofile"))
+                .andExpect(status().isNotFound());
+
+        // a batch fails just the players whose handle is taken, including by an earlier item
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/batch")
+                .content("[{\"name\":\"Twin One\",\"nationality\":\"Nowhere\",\"birthDate\":\"01-02-1990\",\"titles\":1,"
+                        + "\"playerProfile\":{\"twitter\":\"@twin\"}},"
+                        + "{\"name\":\"Twin Two\",\"nationality\":\"Nowhere\",\"birthDate\":\"01-02-1990\",\"titles\":1,"
+                        + "\"playerProfile\":{\"twitter\":\"@TWIN\"}},"
+                        + "{\"name\":\"Lone Two\",\"nationality\":\"Nowhere\",\"birthDate\":\"01-02-1990\",\"titles\":1,"
+                        + "\"playerProfile\":{\"twitter\":\"loneprofile\"}}]")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status", contains("CREATED", "FAILED", "FAILED")));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/profiles/" + profileId))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/profiles/by-handle/loneprofile"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testChangeFeedReplaysAfterLastEventId() throws Exception {
+        long before = changeFeed.lastSequence();
+        int playerId = createPlayer(new Player("Feed", "Nowhere", Date.valueOf("1990-01-01"), 1));
+        mockMvc.perform(MockMvcRequestBuilders.delete("/players/" + playerId))
+                .andExpect(status().isOk());
+
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/changes")
+                .header("Last-Event-ID", before))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String events = awaitStream(stream, "event:deleted\ndata:{\"type\":\"DELETED\",\"playerId\":" + playerId + "}");
+        assertTrue(stream.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        assertTrue(events.contains("event:created\n"), events);
+        assertTrue(events.contains("\"name\":\"Feed\""), events);
+    }
+
+    private int createPlayer(Player player) throws Exception {
+        String body = mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(objectMapper.writeValueAsString(player))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Player.class).getId();
+    }
+
+    //names across every page of a search, following the Link headers
+    private List<String> searchedNames(MockHttpServletRequestBuilder request) throws Exception {
+        List<String> names = new ArrayList<>();
+        while (request != null) {
+            MvcResult result = mockMvc.perform(request.accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            for (Player p : objectMapper.readValue(result.getResponse().getContentAsString(), Player[].class)) {
+                names.add(p.getName());
+            }
+            String link = result.getResponse().getHeader("Link");
+            request = link != null ? MockMvcRequestBuilders.get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))) : null;
+        }
+        return names;
+    }
+
+    private void incrementTitles(int id, int delta) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players/" + id + "/titles/increments")
+                .content(String.valueOf(delta))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted());
+    }
+
+    //JDBC statements Hibernate prepared while handling one request
+    private long statementsFor(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(request).andExpect(status().is(expectedStatus));
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    //waits until an open event stream contains the expected text and returns what it has so far
+    private String awaitStream(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    //polls a write ticket until the writer has committed it and returns the player id
+    private int awaitCommitted(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            String body = mockMvc.perform(MockMvcRequestBuilders.get(location).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            Map<?, ?> ticket = objectMapper.readValue(body, Map.class);
+            if (!"PENDING".equals(ticket.get("status")) || System.currentTimeMillis() > deadline) {
+                assertEquals("COMMITTED", ticket.get("status"), body);
+                return (Integer) ticket.get("playerId");
+            }
+            Thread.sleep(20);
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fills the durable (file) database, restarts the application on the same files and reports
+ * how long recovery took. Override the size with ./gradlew loadTest -PrecoveryPlayers=N.
+ */
+@Tag("load")
+public class PlayerDurableRecoveryTest {
+
+    private static final int PLAYERS = Integer.getInteger("recovery.players", 1_000_000);
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void testRestartRecoversAllPlayers() {
+        int durableId;
+        try (ConfigurableApplicationContext first = start()) {
+            JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+            // ids far above the sequence range, so later inserts cannot collide
+            jdbc.update("INSERT INTO player (id, name, nationality, birth_date, titles, version) "
+                    + "SELECT X + 10000000, CONCAT('Player ', X), CONCAT('Country ', MOD(X, 200)), "
+                    + "DATEADD('DAY', -MOD(X, 20000), DATE '2005-01-01'), MOD(X, 120), 0 "
+                    + "FROM SYSTEM_RANGE(1, ?)", PLAYERS);
+            durableId = first.getBean(PlayerService.class)
+                    .addPlayer(new Player("Durable", "Nowhere", Date.valueOf("1990-01-01"), 1)).getId();
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext second = start()) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(PLAYERS + 1, second.getBean(PlayerRepository.class).count());
+            assertEquals(PLAYERS + 1, second.getBean(PlayerLeaderboard.class).size());
+            assertEquals("Durable", second.getBean(PlayerService.class).getPlayer(durableId).getName());
+
+            // the id sequence survived too
+            Player next = second.getBean(PlayerService.class)
+                    .addPlayer(new Player("After restart", "Nowhere", Date.valueOf("1990-01-01"), 0));
+            assertNotEquals(durableId, next.getId());
+
+            System.out.printf("[durable] restart recovered %d players in %d ms%n", PLAYERS + 1, millis);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        SpringApplication app = new SpringApplication(TennisPlayerRestApplication.class);
+        app.setAdditionalProfiles("durable");
+        // command-line arguments outrank application.properties
+        return app.run("--players.data-dir=" + dataDir, "--server.port=0");
+    }
+}
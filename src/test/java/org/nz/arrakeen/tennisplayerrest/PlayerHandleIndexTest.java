@@ -0,0 +1,71 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerHandleIndexTest {
+
+    private final PlayerHandleIndex handles = new PlayerHandleIndex();
+
+    private static PlayerProfile profile(int id, String twitter) {
+        PlayerProfile profile = new PlayerProfile(twitter);
+        profile.setId(id);
+        return profile;
+    }
+
+    private static Player player(int id, PlayerProfile profile) {
+        Player p = new Player("Player " + id, "Nowhere", Date.valueOf("1990-01-01"), 1, profile);
+        p.setId(id);
+        return p;
+    }
+
+    @Test
+    public void testKeyIgnoresCaseAndLeadingAt() {
+        assertEquals("rogerfederer", PlayerProfile.keyOf(" @RogerFederer "));
+        assertEquals("rogerfederer", PlayerProfile.keyOf("rogerfederer"));
+        assertNull(PlayerProfile.keyOf("@"));
+        assertNull(PlayerProfile.keyOf(null));
+    }
+
+    @Test
+    public void testFollowsProfilesAndPlayers() {
+        handles.profileSaved(profile(10, "@Solo"));
+        assertEquals(Optional.of(new PlayerHandleIndex.Entry(10, null)), handles.find("solo"));
+        assertTrue(handles.isTaken("@SOLO", 0));
+        assertFalse(handles.isTaken("@solo", 10));
+
+        handles.onPlayerChange(PlayerChangeEvent.created(player(1, profile(11, "@First"))));
+        assertEquals(Optional.of(new PlayerHandleIndex.Entry(11, 1)), handles.find("@first"));
+
+        // renamed handle: the old one is free again
+        handles.onPlayerChange(PlayerChangeEvent.patched(player(1, profile(11, "@Renamed"))));
+        assertTrue(handles.find("first").isEmpty());
+        assertEquals(11, handles.find("renamed").orElseThrow().profileId());
+
+        // profile removed from the player: the row stays, without a player
+        handles.onPlayerChange(PlayerChangeEvent.patched(player(1, null)));
+        assertEquals(Optional.of(new PlayerHandleIndex.Entry(11, null)), handles.find("renamed"));
+
+        handles.onPlayerChange(PlayerChangeEvent.patched(player(1, profile(12, "@Second"))));
+        handles.onPlayerChange(PlayerChangeEvent.deleted(1));
+        assertTrue(handles.find("second").isEmpty());
+
+        handles.profileDeleted(10);
+        handles.profileDeleted(11);
+        assertEquals(0, handles.size());
+    }
+
+    @Test
+    public void testMatchesComparesKeys() {
+        assertTrue(PlayerHandleIndex.matches(profile(1, "@Nadal"), "NADAL"));
+        assertFalse(PlayerHandleIndex.matches(profile(1, "@Nadal"), "rafa"));
+        assertFalse(PlayerHandleIndex.matches(null, "nadal"));
+        assertFalse(PlayerHandleIndex.matches(profile(1, "  "), "nadal"));
+        assertFalse(PlayerHandleIndex.matches(profile(1, "@"), "nadal"));
+        assertFalse(PlayerHandleIndex.matches(profile(1, null), "nadal"));
+    }
+}
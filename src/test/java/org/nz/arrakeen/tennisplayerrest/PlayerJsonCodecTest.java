@@ -0,0 +1,78 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerJsonCodecTest {
+
+    // bean serialization as Spring Boot configures it, and the same mapper with the codec
+    private final ObjectMapper bean = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper codec = Jackson2ObjectMapperBuilder.json().modulesToInstall(PlayerJsonCodec.module()).build();
+
+    private static Player player(int id, String birthDate, PlayerProfile profile) {
+        Player p = new Player("Player " + id, "Switzerland", birthDate != null ? Date.valueOf(birthDate) : null, id, profile);
+        p.setId(id);
+        p.setVersion(id % 2 == 0 ? id : null);
+        return p;
+    }
+
+    @Test
+    public void testOutputMatchesBeanSerialization() throws Exception {
+        PlayerProfile profile = new PlayerProfile("@rf");
+        profile.setId(7);
+        profile.setVersion(3);
+        List<Player> players = List.of(player(1, "1981-08-08", profile), player(2, null, null),
+                player(3, "1899-12-31", new PlayerProfile(null)), player(4, "2024-02-29", null));
+
+        for (Player p : players) {
+            assertEquals(bean.writeValueAsString(p), codec.writeValueAsString(p));
+        }
+        assertEquals(bean.writeValueAsString(players), codec.writeValueAsString(players));
+    }
+
+    @Test
+    public void testDatesFollowMapperTimeZone() throws Exception {
+        TimeZone auckland = TimeZone.getTimeZone("Pacific/Auckland");
+        ObjectMapper beanNz = bean.copy().setTimeZone(auckland);
+        ObjectMapper codecNz = codec.copy().setTimeZone(auckland);
+        Player p = player(1, "1990-01-01", null);
+
+        assertEquals(beanNz.writeValueAsString(p), codecNz.writeValueAsString(p));
+        String json = "{\"name\":\"A\",\"birthDate\":\"02-09-1986\"}";
+        assertEquals(beanNz.readValue(json, Player.class).getBirthDate(), codecNz.readValue(json, Player.class).getBirthDate());
+    }
+
+    @Test
+    public void testReadMatchesBeanDeserialization() throws Exception {
+        List<String> inputs = List.of(
+                "{\"id\":5,\"name\":\"A\",\"nationality\":\"NZ\",\"birthDate\":\"02-09-1986\",\"titles\":3,"
+                        + "\"playerProfile\":{\"id\":2,\"twitter\":\"@a\",\"version\":1},\"version\":4}",
+                "{\"name\":\"B\",\"birthDate\":\"1-2-1990\",\"titles\":\"7\",\"playerProfile\":null}",
+                "{\"birthDate\":504921600000,\"version\":null}",
+                "{\"birthDate\":\"\"}");
+
+        for (String json : inputs) {
+            assertEquals(bean.writeValueAsString(bean.readValue(json, Player.class)),
+                    bean.writeValueAsString(codec.readValue(json, Player.class)), json);
+        }
+    }
+
+    @Test
+    public void testRejectsWhatBeanDeserializationRejects() {
+        assertThrows(UnrecognizedPropertyException.class,
+                () -> codec.copy().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                        .readValue("{\"unknown\":1}", Player.class));
+        assertThrows(InvalidFormatException.class, () -> codec.readValue("{\"birthDate\":\"yesterday\"}", Player.class));
+    }
+}
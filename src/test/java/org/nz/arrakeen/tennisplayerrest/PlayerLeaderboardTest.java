@@ -0,0 +1,82 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerLeaderboardTest {
+
+    private final PlayerLeaderboard leaderboard = new PlayerLeaderboard();
+
+    private static Player player(int id, String name, int titles) {
+        return player(id, name, titles, 0);
+    }
+
+    private static Player player(int id, String name, int titles, int version) {
+        Player p = new Player(name, "Nowhere", Date.valueOf("1990-01-01"), titles);
+        p.setId(id);
+        p.setVersion(version);
+        return p;
+    }
+
+    @Test
+    public void testTopSharesRankOnEqualTitles() {
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(1, "A", 5)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(2, "B", 9)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(3, "C", 5)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(4, "D", 1)));
+
+        List<PlayerStanding> top = leaderboard.top(10);
+
+        assertEquals(List.of(2, 1, 3, 4), top.stream().map(PlayerStanding::getId).toList());
+        assertEquals(List.of(1, 2, 2, 4), top.stream().map(PlayerStanding::getRank).toList());
+        assertEquals(2, leaderboard.top(2).size());
+    }
+
+    @Test
+    public void testChangesMovePlayers() {
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(1, "A", 5)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(2, "B", 9)));
+
+        leaderboard.onPlayerChange(PlayerChangeEvent.titlesIncremented(player(1, "A", 15, 1), 10));
+        assertEquals(1, leaderboard.top(1).get(0).getId());
+        assertEquals(15, leaderboard.top(1).get(0).getTitles());
+
+        leaderboard.onPlayerChange(PlayerChangeEvent.titlesIncremented(player(1, "A", 0, 2), -100));
+        assertEquals(0, leaderboard.top(2).get(1).getTitles());
+
+        leaderboard.onPlayerChange(PlayerChangeEvent.updated(player(1, "Renamed", 20, 3)));
+        assertEquals("Renamed", leaderboard.top(1).get(0).getName());
+
+        leaderboard.onPlayerChange(PlayerChangeEvent.deleted(1));
+        leaderboard.onPlayerChange(PlayerChangeEvent.titlesSet(player(1, "Renamed", 50, 4)));
+        assertEquals(1, leaderboard.size());
+        assertEquals(2, leaderboard.top(1).get(0).getId());
+    }
+
+    @Test
+    public void testChangesReportedOutOfOrderNeverWin() {
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(1, "A", 5)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.created(player(2, "B", 9)));
+
+        // titles set at version 2 is reported before the patch that committed as version 1
+        leaderboard.onPlayerChange(PlayerChangeEvent.titlesSet(player(1, "Renamed", 30, 2)));
+        leaderboard.onPlayerChange(PlayerChangeEvent.patched(player(1, "Renamed", 6, 1)));
+        assertEquals(1, leaderboard.top(1).get(0).getId());
+        assertEquals(30, leaderboard.top(1).get(0).getTitles());
+
+        // a patch reported after the delete that followed it does not bring the player back
+        leaderboard.onPlayerChange(PlayerChangeEvent.deleted(2));
+        leaderboard.onPlayerChange(PlayerChangeEvent.patched(player(2, "B", 100, 1)));
+        assertEquals(1, leaderboard.size());
+        assertEquals(List.of(1), leaderboard.top(10).stream().map(PlayerStanding::getId).toList());
+    }
+
+    @Test
+    public void testTopRejectsNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.top(0));
+    }
+}
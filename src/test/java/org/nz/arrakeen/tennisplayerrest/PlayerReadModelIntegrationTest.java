@@ -0,0 +1,155 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// own in-memory database: this context must not share tables with the default one
+@SpringBootTest(properties = {
+    "players.read-model.enabled=true",
+    "spring.datasource.url=jdbc:h2:mem:read-model"
+})
+@AutoConfigureMockMvc
+public class PlayerReadModelIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PlayerReadModel readModel;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private PlayerTitleCounters titleCounters;
+
+    private ObjectMapper objectMapper = JsonMapper.builder()
+        .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+        .build();
+
+    @Test
+    public void testSnapshotLoadedAtStartup() throws Exception {
+        assertTrue(readModel.snapshot().size() >= 3);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.name", notNullValue()))
+                .andExpect(header().exists("ETag"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/9999")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testCommittedWritesPublishNewSnapshots() throws Exception {
+        Player player = new Player("Snapshot Player", "Nowhere", Date.valueOf("1990-01-01"), 2);
+        String responseContent = mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(objectMapper.writeValueAsString(player))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int playerId = objectMapper.readValue(responseContent, Player.class).getId();
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + playerId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Snapshot Player"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + playerId + "/titles")
+                .content("7")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals(7, readModel.snapshot().find(playerId).getTitles());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .patch("/players/" + playerId)
+                .content("{\"playerProfile\": {\"twitter\": \"@snapshot\"}}")
+                .contentType("application/merge-patch+json"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + playerId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles").value(7))
+                .andExpect(jsonPath("$.playerProfile.twitter").value("@snapshot"));
+
+        titleCounters.increment(playerId, 3);
+        titleCounters.flush();
+        assertEquals(10, readModel.snapshot().find(playerId).getTitles());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .delete("/players/" + playerId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players/" + playerId)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testBatchChunkPublishesOneSnapshot() throws Exception {
+        long before = readModel.snapshot().version();
+
+        List<PlayerBatchResult> results = playerService.addPlayers(List.of(
+                new Player("Batch A", "Nowhere", Date.valueOf("1990-01-01"), 0),
+                new Player("Batch B", "Nowhere", Date.valueOf("1990-01-01"), 0),
+                new Player("Batch C", "Nowhere", Date.valueOf("1990-01-01"), 0)).iterator());
+
+        assertEquals(before + 1, readModel.snapshot().version());
+        for (PlayerBatchResult result : results) {
+            assertNotNull(readModel.snapshot().find(result.getId()));
+        }
+    }
+
+    @Test
+    public void testCollectionETagFollowsSnapshot() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(greaterThan(0))))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        playerService.addPlayer(new Player("ETag Player", "Nowhere", Date.valueOf("1990-01-01"), 0));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                .get("/players")
+                .header("If-None-Match", etag)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
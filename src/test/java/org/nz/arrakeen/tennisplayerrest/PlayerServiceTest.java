@@ -5,7 +5,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Date;
 import java.util.Arrays;
@@ -13,10 +18,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +33,27 @@ public class PlayerServiceTest {
     @Mock
     private PlayerRepository playerRepository;
 
+    @Mock
+    private PlayerProfileRepository profileRepository;
+
+    @Spy
+    private PlayerPatcher playerPatcher = new PlayerPatcher();
+
+    @Spy
+    private PlayerCatalogVersion catalogVersion = new PlayerCatalogVersion();
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private PlayerHandleIndex handles;
+
+    @Mock
+    private PlayerTitleCounters titleCounters;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private PlayerService playerService;
 
@@ -34,6 +63,12 @@ public class PlayerServiceTest {
 
     @BeforeEach
     public void setUp() {
+        // run transactional callbacks in place
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(titleCounters.withoutFlush(any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+
         // Create a player profile
         profile1 = new PlayerProfile();
         profile1.setTwitter("@player1");
@@ -63,6 +98,43 @@ public class PlayerServiceTest {
         verify(playerRepository, times(1)).findAllOrderedById();
     }
 
+    @Test
+    public void testGetPlayersPageWithNext() {
+        // Arrange: repository returns one row more than requested
+        when(playerRepository.findPageAfter(eq(0), argThat((Limit l) -> l.max() == 2)))
+            .thenReturn(Arrays.asList(player1, player2));
+
+        // Act
+        PlayerPage page = playerService.getPlayersPage(0, 1);
+
+        // Assert
+        assertEquals(1, page.getPlayers().size());
+        assertEquals("Roger Federer", page.getPlayers().get(0).getName());
+        assertTrue(page.hasNext());
+        assertEquals(1, PlayerCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    public void testGetPlayersPageLast() {
+        // Arrange
+        when(playerRepository.findPageAfter(eq(1), argThat((Limit l) -> l.max() == 11)))
+            .thenReturn(Arrays.asList(player2));
+
+        // Act
+        PlayerPage page = playerService.getPlayersPage(1, 10);
+
+        // Assert
+        assertEquals(1, page.getPlayers().size());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetPlayersPageInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> playerService.getPlayersPage(0, 0));
+        verify(playerRepository, never()).findPageAfter(anyInt(), any(Limit.class));
+    }
+
     @Test
     public void testGetPlayerSuccess() {
         // Arrange
@@ -95,6 +167,47 @@ public class PlayerServiceTest {
         verify(playerRepository, times(1)).findById(999);
     }
 
+    @Test
+    public void testFindPlayerNotFoundReturnsEmpty() {
+        when(playerRepository.findById(999)).thenReturn(Optional.empty());
+
+        assertTrue(playerService.findPlayer(999).isEmpty());
+    }
+
+    @Test
+    public void testNotFoundExceptionSkipsStackTrace() {
+        when(playerRepository.deleteReturningProfileId(999)).thenReturn(List.of());
+
+        PlayerNotFoundException exception = assertThrows(
+            PlayerNotFoundException.class,
+            () -> playerService.deletePlayer(999, null)
+        );
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    public void testGetPlayerETagNotFound() {
+        // Arrange
+        when(playerRepository.findVersionById(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(PlayerNotFoundException.class, () -> playerService.getPlayerETag(999));
+        verify(playerRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    public void testPlayersETagChangesOnWrite() {
+        // Arrange
+        when(playerRepository.save(any(Player.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        String before = playerService.getPlayersETag();
+
+        // Act
+        playerService.addPlayer(new Player("Casper Ruud", "Norway", Date.valueOf("1998-12-22"), 12));
+
+        // Assert
+        assertNotEquals(before, playerService.getPlayersETag());
+    }
+
     @Test
     public void testAddPlayerWithoutProfile() {
         // Arrange
@@ -146,39 +259,48 @@ public class PlayerServiceTest {
     public void testUpdatePlayerSuccess() {
         // Arrange
         Player updatedPlayer = new Player("Roger Updated", "Switzerland", Date.valueOf("1981-08-08"), 21);
-
-        when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
-        when(playerRepository.save(any(Player.class))).thenAnswer(invocation -> {
-            Player savedPlayer = invocation.getArgument(0);
-            return savedPlayer; // Return the updated player
-        });
+        when(playerRepository.updateDetailsReturningVersion(1, "Roger Updated", "Switzerland", Date.valueOf("1981-08-08"), 21))
+            .thenReturn(List.of(4));
 
         // Act
-        Player result = playerService.updatePlayer(1, updatedPlayer);
+        playerService.updatePlayer(1, updatedPlayer, null);
 
-        // Assert
-        assertNotNull(result);
-        assertEquals(1, result.getId());
-        assertEquals("Roger Updated", result.getName());
-        assertEquals(21, result.getTitles());
-        verify(playerRepository, times(1)).findById(1);
-        verify(playerRepository, times(1)).save(any(Player.class));
+        // Assert: one UPDATE, no load and no merge
+        verify(playerRepository, never()).findById(anyInt());
+        verify(playerRepository, never()).save(any(Player.class));
+        verify(events).publishEvent(argThat((PlayerChangeEvent e) ->
+            e.getType() == PlayerChangeEvent.Type.DETAILS_SET && e.getPlayerId() == 1
+                && e.getPlayer().getVersion() == 4 && e.getPlayer().getTitles() == 21));
+        verify(titleCounters).discard(List.of(1));
     }
 
     @Test
     public void testUpdatePlayerNotFound() {
         // Arrange
         Player updatedPlayer = new Player("Unknown Player", "Unknown", Date.valueOf("2000-01-01"), 0);
-        when(playerRepository.findById(999)).thenReturn(Optional.empty());
+        when(playerRepository.updateDetailsReturningVersion(eq(999), any(), any(), any(), anyInt())).thenReturn(List.of());
 
         // Act & Assert
         PlayerNotFoundException exception = assertThrows(
             PlayerNotFoundException.class,
-            () -> playerService.updatePlayer(999, updatedPlayer)
+            () -> playerService.updatePlayer(999, updatedPlayer, null)
         );
         assertEquals("Player with id 999 not found.", exception.getMessage());
-        verify(playerRepository, times(1)).findById(999);
-        verify(playerRepository, never()).save(any(Player.class));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    public void testUpdatePlayerWithStaleVersion() {
+        // Arrange
+        Player updatedPlayer = new Player("Roger Updated", "Switzerland", Date.valueOf("1981-08-08"), 21);
+        when(playerRepository.updateDetailsReturningVersion(eq(1), any(), any(), any(), anyInt(), eq(3))).thenReturn(List.of());
+        when(playerRepository.findVersionById(1)).thenReturn(Optional.of(mock(PlayerRepository.VersionView.class)));
+
+        // Act & Assert: the row exists, so the version is what did not match
+        assertThrows(
+            PlayerVersionMismatchException.class,
+            () -> playerService.updatePlayer(1, updatedPlayer, 3)
+        );
     }
 
     @Test
@@ -189,7 +311,7 @@ public class PlayerServiceTest {
         playerPatch.put("titles", 21);
 
         when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
-        when(playerRepository.save(any(Player.class))).thenAnswer(invocation -> {
+        when(playerRepository.saveAndFlush(any(Player.class))).thenAnswer(invocation -> {
             Player savedPlayer = invocation.getArgument(0);
             return savedPlayer;
         });
@@ -205,7 +327,65 @@ public class PlayerServiceTest {
         // Unchanged fields should remain the same
         assertEquals("Switzerland", result.getNationality());
         verify(playerRepository, times(1)).findById(1);
-        verify(playerRepository, times(1)).save(any(Player.class));
+        verify(playerRepository, times(1)).saveAndFlush(any(Player.class));
+        // patched titles replace buffered increments
+        verify(titleCounters).discard(List.of(1));
+    }
+
+    @Test
+    public void testPatchPlayerConvertsTypes() {
+        // Arrange: values as Jackson hands them over from a JSON body
+        Map<String, Object> playerPatch = new HashMap<>();
+        playerPatch.put("titles", 23L);
+        playerPatch.put("birthDate", "08-08-1982");
+        playerPatch.put("playerProfile", Map.of("twitter", "@rogerfederer"));
+
+        when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
+        when(playerRepository.saveAndFlush(any(Player.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Player result = playerService.patch(1, playerPatch);
+
+        // Assert
+        assertEquals(23, result.getTitles());
+        assertEquals(Date.valueOf("1982-08-08"), result.getBirthDate());
+        assertEquals("@rogerfederer", result.getPlayerProfile().getTwitter());
+        assertEquals("Roger Federer", result.getName());
+    }
+
+    @Test
+    public void testPatchPlayerRejectsUnknownFieldWithoutChanges() {
+        // Arrange
+        Map<String, Object> playerPatch = new HashMap<>();
+        playerPatch.put("name", "Changed");
+        playerPatch.put("ranking", 1);
+
+        when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> playerService.patch(1, playerPatch)
+        );
+        assertEquals("Field 'ranking' does not exist or cannot be patched", exception.getMessage());
+        assertEquals("Roger Federer", player1.getName());
+        verify(playerRepository, never()).saveAndFlush(any(Player.class));
+    }
+
+    @Test
+    public void testPatchPlayerRemovesProfileWithNull() {
+        // Arrange: RFC 7396 null means remove
+        Map<String, Object> playerPatch = new HashMap<>();
+        playerPatch.put("playerProfile", null);
+
+        when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
+        when(playerRepository.saveAndFlush(any(Player.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Player result = playerService.patch(1, playerPatch);
+
+        // Assert
+        assertNull(result.getPlayerProfile());
     }
 
     @Test
@@ -223,7 +403,7 @@ public class PlayerServiceTest {
         );
         assertEquals("Player with id 999 not found.", exception.getMessage());
         verify(playerRepository, times(1)).findById(999);
-        verify(playerRepository, never()).save(any(Player.class));
+        verify(playerRepository, never()).saveAndFlush(any(Player.class));
     }
 
     @Test
@@ -234,37 +414,48 @@ public class PlayerServiceTest {
         // Act
         playerService.updateTitles(1, 25);
 
-        // Assert
+        // Assert: increments buffered before the new value are dropped
         verify(playerRepository, times(1)).updateTitles(1, 25);
+        verify(titleCounters).discard(List.of(1));
     }
 
     @Test
     public void testDeletePlayerSuccess() {
         // Arrange
-        when(playerRepository.findById(1)).thenReturn(Optional.of(player1));
-        doNothing().when(playerRepository).delete(any(Player.class));
+        when(playerRepository.deleteReturningProfileId(1)).thenReturn(Arrays.asList(7));
 
         // Act
-        String result = playerService.deletePlayer(1);
+        String result = playerService.deletePlayer(1, null);
 
         // Assert
         assertEquals("Player with id 1 deleted", result);
-        verify(playerRepository, times(1)).findById(1);
-        verify(playerRepository, times(1)).delete(player1);
+        verify(profileRepository, times(1)).deleteDirectly(7);
+        verify(playerRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    public void testDeletePlayerWithoutProfile() {
+        // Arrange
+        when(playerRepository.deleteReturningProfileId(2)).thenReturn(Arrays.asList((Integer) null));
+
+        // Act
+        playerService.deletePlayer(2, null);
+
+        // Assert
+        verify(profileRepository, never()).deleteDirectly(anyInt());
     }
 
     @Test
     public void testDeletePlayerNotFound() {
         // Arrange
-        when(playerRepository.findById(999)).thenReturn(Optional.empty());
+        when(playerRepository.deleteReturningProfileId(999)).thenReturn(List.of());
 
         // Act & Assert
         PlayerNotFoundException exception = assertThrows(
             PlayerNotFoundException.class,
-            () -> playerService.deletePlayer(999)
+            () -> playerService.deletePlayer(999, null)
         );
         assertEquals("Player with id 999 not found.", exception.getMessage());
-        verify(playerRepository, times(1)).findById(999);
-        verify(playerRepository, never()).delete(any(Player.class));
+        verify(profileRepository, never()).deleteDirectly(anyInt());
     }
 }
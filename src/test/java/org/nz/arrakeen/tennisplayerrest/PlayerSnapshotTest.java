@@ -0,0 +1,100 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerSnapshotTest {
+
+    private static Player player(int id, String name, int titles, int version) {
+        Player p = new Player(name, "Nowhere", Date.valueOf("1990-01-01"), titles);
+        p.setId(id);
+        p.setVersion(version);
+        return p;
+    }
+
+    private static PlayerSnapshot apply(PlayerSnapshot snapshot, PlayerChangeEvent... events) {
+        return snapshot.apply(List.of(events).stream().map(PlayerSnapshot.Change::of).toList());
+    }
+
+    @Test
+    public void testDetailsSetReportedOutOfOrderKeepsNewerVersion() {
+        PlayerSnapshot snapshot = apply(PlayerSnapshot.empty(), PlayerChangeEvent.created(player(1, "Original", 1, 0)));
+
+        // two PUTs committed as A (version 1) then B (version 2), their callbacks ran B then A
+        snapshot = apply(snapshot, PlayerChangeEvent.detailsSet(player(1, "B", 3, 2)));
+        snapshot = apply(snapshot, PlayerChangeEvent.detailsSet(player(1, "A", 2, 1)));
+
+        Player found = snapshot.find(1);
+        assertEquals("B", found.getName());
+        assertEquals(3, found.getTitles());
+        assertEquals(2, found.getVersion());
+    }
+
+    @Test
+    public void testTitleChangesReportedOutOfOrderKeepNewerVersion() {
+        PlayerSnapshot snapshot = apply(PlayerSnapshot.empty(), PlayerChangeEvent.created(player(1, "Original", 1, 0)));
+
+        // committed as increment (version 1), rename (2), titles set (3); reported the other way round
+        snapshot = apply(snapshot, PlayerChangeEvent.titlesSet(player(1, "Renamed", 40, 3)));
+        snapshot = apply(snapshot, PlayerChangeEvent.detailsSet(player(1, "Renamed", 6, 2)));
+        snapshot = apply(snapshot, PlayerChangeEvent.titlesIncremented(player(1, "Original", 6, 1), 5));
+        assertEquals(40, snapshot.find(1).getTitles());
+        assertEquals("Renamed", snapshot.find(1).getName());
+
+        snapshot = apply(snapshot, PlayerChangeEvent.titlesIncremented(player(1, "Renamed", 45, 4), 5));
+        assertEquals(45, snapshot.find(1).getTitles());
+        assertEquals(4, snapshot.find(1).getVersion());
+    }
+
+    @Test
+    public void testNationalityNoLongerUsedLeavesThePool() {
+        Player original = player(1, "Original", 1, 0);
+        original.setNationality(new String("Atlantis"));
+        Player other = player(2, "Other", 1, 0);
+        String pooled = new String("Atlantis");
+        other.setNationality(pooled);
+        PlayerSnapshot snapshot = apply(PlayerSnapshot.empty(),
+                PlayerChangeEvent.created(original), PlayerChangeEvent.created(other));
+        // repeated nationalities share one string
+        assertSame(snapshot.find(1).getNationality(), snapshot.find(2).getNationality());
+
+        // still used by player 2, so a newcomer shares its string
+        snapshot = apply(snapshot, PlayerChangeEvent.deleted(1));
+        Player third = player(3, "Third", 1, 0);
+        third.setNationality(new String("Atlantis"));
+        snapshot = apply(snapshot, PlayerChangeEvent.created(third));
+        assertSame(snapshot.find(2).getNationality(), snapshot.find(3).getNationality());
+
+        // nobody has it any more: the pooled string is released and the next player brings its own
+        Player moved = player(2, "Other", 1, 1);
+        moved.setNationality("Narnia");
+        snapshot = apply(snapshot, PlayerChangeEvent.deleted(3), PlayerChangeEvent.detailsSet(moved));
+        String fresh = new String("Atlantis");
+        Player fourth = player(4, "Fourth", 1, 0);
+        fourth.setNationality(fresh);
+        snapshot = apply(snapshot, PlayerChangeEvent.created(fourth));
+        assertSame(fresh, snapshot.find(4).getNationality());
+        assertNotSame(pooled, snapshot.find(4).getNationality());
+    }
+
+    @Test
+    public void testDetailsSetKeepsProfileAndNeverRevivesDeletedPlayer() {
+        Player withProfile = player(1, "Original", 1, 0);
+        PlayerProfile profile = new PlayerProfile("@original");
+        profile.setId(7);
+        profile.setVersion(0);
+        withProfile.setPlayerProfile(profile);
+        PlayerSnapshot snapshot = apply(PlayerSnapshot.empty(), PlayerChangeEvent.created(withProfile));
+
+        snapshot = apply(snapshot, PlayerChangeEvent.detailsSet(player(1, "Renamed", 1, 1)));
+        assertEquals("Renamed", snapshot.find(1).getName());
+        assertEquals("@original", snapshot.find(1).getPlayerProfile().getTwitter());
+
+        snapshot = apply(snapshot, PlayerChangeEvent.deleted(1), PlayerChangeEvent.detailsSet(player(1, "Late", 1, 2)));
+        assertNull(snapshot.find(1));
+    }
+}
@@ -0,0 +1,46 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// a queue without room rejects every asynchronous write; own database as for the other extra contexts
+@SpringBootTest(properties = {
+    "players.write-behind.capacity=0",
+    "players.write-behind.retry-after-seconds=3",
+    "spring.datasource.url=jdbc:h2:mem:write-behind"
+})
+@AutoConfigureMockMvc
+public class PlayerWriteBehindBackpressureTest {
+
+    private static final String PLAYER =
+            "{\"name\":\"Queued\",\"nationality\":\"Nowhere\",\"birthDate\":\"01-01-1990\",\"titles\":0}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testFullQueueAnswers429WithRetryAfter() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .header("Prefer", "respond-async")
+                .content(PLAYER)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.statusCode").value(429));
+
+        // synchronous writes do not go through the queue
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/players")
+                .content(PLAYER)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,17 @@
+package org.nz.arrakeen.tennisplayerrest;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:load-virtual",
+    "spring.cache.type=none"
+})
+@ActiveProfiles("virtual-threads")
+public class VirtualThreadLoadTest extends AbstractPlayerLoadTest {
+
+    @Override
+    protected String mode() {
+        return "virtual threads";
+    }
+}
@@ -0,0 +1,62 @@
+#!/bin/bash
+
+# Measures time from JVM launch to the first successful /welcome and /players response,
+# with and without Spring AOT and the AppCDS archive.
+# Usage: ./gradlew startupBenchmark [-PstartupRuns=N]
+#    or: ./startup-benchmark.sh <dir with application.jar and application.jsa> [runs]
+
+set -e
+
+DIR=${1:-build/cds}
+RUNS=${2:-5}
+JAVA=${JAVA:-java}
+PORT=${PORT:-18080}
+
+if [ ! -f "$DIR/application.jar" ] || [ ! -f "$DIR/application.jsa" ]; then
+    echo "Missing $DIR/application.jar or application.jsa, run ./gradlew cdsArchive first"
+    exit 1
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# waits until the URL answers 200 and prints the elapsed ms since $1
+wait_for() {
+    local start=$1 url=$2
+    for _ in $(seq 1 600); do
+        if [ "$(curl -s -o /dev/null -w '%{http_code}' "$url")" = "200" ]; then
+            echo $(( $(now_ms) - start ))
+            return 0
+        fi
+        sleep 0.05
+    done
+    echo "timeout"
+    return 1
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+run_mode() {
+    local name=$1
+    shift
+    local welcome=() players=()
+    for run in $(seq 1 "$RUNS"); do
+        local start
+        start=$(now_ms)
+        (cd "$DIR" && exec "$JAVA" "$@" -jar application.jar --server.port="$PORT" > /dev/null 2>&1) &
+        local pid=$!
+        welcome+=("$(wait_for "$start" "http://localhost:$PORT/welcome")")
+        players+=("$(wait_for "$start" "http://localhost:$PORT/players")")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+    done
+    printf '%-12s first /welcome %6s ms   first /players %6s ms   (median of %s runs)\n' "$name" \
+        "$(printf '%s\n' "${welcome[@]}" | median)" "$(printf '%s\n' "${players[@]}" | median)" "$RUNS"
+}
+
+run_mode "plain"
+run_mode "aot" -Dspring.aot.enabled=true
+run_mode "aot+cds" -Dspring.aot.enabled=true -XX:SharedArchiveFile=application.jsa